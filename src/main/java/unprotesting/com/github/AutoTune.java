@@ -12,6 +12,7 @@ import unprotesting.com.github.commands.SellCommand;
 import unprotesting.com.github.commands.ShopCommand;
 import unprotesting.com.github.config.Config;
 import unprotesting.com.github.data.Database;
+import unprotesting.com.github.data.EconomyReconciler;
 import unprotesting.com.github.events.*;
 import unprotesting.com.github.server.LocalServer;
 import unprotesting.com.github.util.EconomyUtil;
@@ -78,9 +79,22 @@ public class AutoTune extends JavaPlugin {
                 (long) (config.getTutorialUpdate() * 20),
                 (long) (config.getTutorialUpdate() * 20));
 
-        scheduler.runTaskTimerAsynchronously(this,
-                () -> pluginManager.callEvent(new AutoTuneInventoryCheckEvent(true)),
-                600L, 4L);
+        pluginManager.registerEvents(new AutosellListener(), this);
+        pluginManager.registerEvents(new EconomyListener(), this);
+
+        scheduler.runTaskTimer(this, EconomyReconciler::start,
+                config.getReconcileInterval() * 1200L, config.getReconcileInterval() * 1200L);
+
+        scheduler.runTaskTimer(this,
+                () -> pluginManager.callEvent(new AutoTuneInventoryCheckEvent(false)),
+                600L, 600L);
+
+        // The online players are only read on the main thread, the rollup runs async.
+        scheduler.runTaskTimer(this, () -> {
+            boolean empty = Bukkit.getOnlinePlayers().isEmpty();
+            scheduler.runTaskAsynchronously(this,
+                    () -> pluginManager.callEvent(new RetentionEvent(true, empty)));
+        }, 6000L, 72000L);
 
         if (config.isEnableLoans()) {
             scheduler.runTaskTimerAsynchronously(this,
@@ -8,22 +8,15 @@ import com.github.stefvanschie.inventoryframework.pane.Pane.Priority;
 import com.github.stefvanschie.inventoryframework.pane.StaticPane;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
-import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import org.bukkit.Material;
-import org.bukkit.NamespacedKey;
 import org.bukkit.command.CommandSender;
-import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.HumanEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
 import unprotesting.com.github.config.Config;
 import unprotesting.com.github.config.TxtHandler;
-import unprotesting.com.github.data.EconomyDataUtil;
 import unprotesting.com.github.data.Section;
 import unprotesting.com.github.data.Shop;
 import unprotesting.com.github.data.ShopUtil;
@@ -40,10 +33,10 @@ public abstract class AutoTuneShopFormat {
         Config config = Config.get();
         ChestGui gui = new ChestGui(6, "Shop");
         gui.setOnGlobalClick(event -> event.setCancelled(true));
-        getBackground(gui);
+        ShopSession session = newSession((Player) sender, gui);
 
         if (args.length == 0) {
-            gui.addPane(loadSectionsPane((Player) sender, gui));
+            showSections(session);
         } else if (args.length == 1) {
             if (args[0].equalsIgnoreCase("help")) {
                 if (!sender.hasPermission("autotune.help") && !sender.isOp()) {
@@ -74,6 +67,8 @@ public abstract class AutoTuneShopFormat {
 
                 sender.sendMessage("Reloading shops...");
                 ShopUtil.reload();
+                ShopRenderCache.clear();
+                GdpSnapshot.clear();
                 sender.sendMessage("Shops Reloaded");
                 return true;
             } else if (args[0].equalsIgnoreCase("update")) {
@@ -112,7 +107,7 @@ public abstract class AutoTuneShopFormat {
                 Format.sendMessage((Player) sender, Config.get().getInvalidShopSection());
                 return true;
             }
-            gui.addPane(loadShopPane((Player) sender, gui, section));
+            showShop(session, args[0]);
         } else if (args.length == 2) {
             if (args[0].equalsIgnoreCase("remove")) {
                 if (!sender.hasPermission("autotune.admin") && !sender.isOp()) {
@@ -145,6 +140,7 @@ public abstract class AutoTuneShopFormat {
                 try {
                     double price = Double.parseDouble(args[2]);
                     shop.setPrice(price);
+                    ShopUtil.putShop(args[1], shop);
                     Format.sendMessage(sender, "<green>Price set to " + price + ".");
                 } catch (Exception e) {
                     Format.sendMessage((Player) sender, "<red>Invalid price.");
@@ -161,18 +157,41 @@ public abstract class AutoTuneShopFormat {
         return true;
     }
 
-    private StaticPane loadSectionsPane(@NotNull Player player, @NotNull ChestGui gui) {
+    private ShopSession newSession(@NotNull Player player, @NotNull ChestGui gui) {
+        GdpSnapshot.Header header = GdpSnapshot.newHeader();
+        return new ShopSession(player, gui, header.getPane(), header::update);
+    }
+
+    /**
+     * Show the sections of the shop.
+     *
+     * @param session The session of the player.
+     */
+    protected void showSections(@NotNull ShopSession session) {
+        session.getPane("sections", () -> loadSectionsPane(session));
+        session.show("sections");
+    }
+
+    /**
+     * Show the shops in a section.
+     *
+     * @param session     The session of the player.
+     * @param sectionName The name of the section.
+     */
+    protected void showShop(@NotNull ShopSession session, @NotNull String sectionName) {
+        String key = "shop:" + sectionName;
+        session.getPane(key, () -> loadShopPane(session, key, sectionName));
+        session.show(key);
+    }
+
+    private StaticPane loadSectionsPane(@NotNull ShopSession session) {
         StaticPane pane = new StaticPane(0, 0, 9, 6, Priority.HIGHEST);
 
         for (String sectionName : ShopUtil.getSectionNames()) {
             Section section = ShopUtil.getSection(sectionName);
             GuiItem item = new GuiItem(section.getItem(), event -> {
                 event.setCancelled(true);
-                gui.getPanes().clear();
-                getBackground(gui);
-                gui.addPane(loadShopPane(player, gui, section));
-                gui.addPane(getGdpPane(player, gui));
-                gui.update();
+                showShop(session, sectionName);
             });
             pane.addItem(item, section.getPosX(), section.getPosY());
         }
@@ -180,53 +199,45 @@ public abstract class AutoTuneShopFormat {
         return pane;
     }
 
-    protected PaginatedPane loadShopPane(@NotNull Player player, @NotNull ChestGui gui,
-            @NotNull Section section) {
+    private PaginatedPane loadShopPane(@NotNull ShopSession session, @NotNull String key,
+            @NotNull String sectionName) {
+        Player player = session.getPlayer();
+        Section section = ShopUtil.getSection(sectionName);
         PaginatedPane pages = new PaginatedPane(0, 0, 9, 6, Priority.HIGHEST);
-        Map<String, Shop> shops = section.getShops();
-        List<String> shopNames = new ArrayList<>(shops.keySet());
+        List<String> shopNames = new ArrayList<>(section.getShopNames());
         shopNames.sort(String::compareToIgnoreCase);
         int page = 0;
         List<GuiItem> itemsOnPage = new ArrayList<>();
 
         for (String shopName : shopNames) {
-            ItemStack item = shops.get(shopName).isEnchantment()
-                    ? new ItemStack(Material.ENCHANTED_BOOK)
-                    : new ItemStack(Objects.requireNonNull(Material.matchMaterial(shopName)));
-            if (shops.get(shopName).isEnchantment()) {
-                Enchantment enchantment = Enchantment.getByKey(NamespacedKey.minecraft(shopName));
-                item.editMeta(meta -> meta.displayName(Component.translatable(enchantment)));
-            } else {
-                item.editMeta(meta -> meta.displayName(
-                        Component.translatable((Objects.requireNonNull(
-                                Material.matchMaterial(shopName)))).asComponent()));
-            }
-            item.lore(applyLore(player, shopName, 1));
-
-            itemsOnPage.add(new GuiItem(item, event -> {
+            Shop shop = ShopUtil.getShop(shopName, true);
+            ItemStack item = ShopRenderCache.getItem(shopName, shop);
+            GuiItem guiItem = new GuiItem(item, event -> {
                 event.setCancelled(true);
-                doShop(event.getWhoClicked(), gui, shopName);
-                gui.update();
-            }));
+                doShop(session, shopName);
+            });
+            session.addItem(key, guiItem, shopName, () -> applyLore(player, shopName, 1));
+            itemsOnPage.add(guiItem);
 
-            if (itemsOnPage.size() == 28 || itemsOnPage.size() + page * 28 == shops.size()) {
+            if (itemsOnPage.size() == 28 || itemsOnPage.size() + page * 28 == shopNames.size()) {
                 OutlinePane pane = new OutlinePane(1, 1, 7, 4, Priority.HIGHEST);
 
-                for (GuiItem guiItem : itemsOnPage) {
-                    pane.addItem(guiItem);
+                for (GuiItem onPage : itemsOnPage) {
+                    pane.addItem(onPage);
                 }
 
                 if (page != 0) {
-                    pages.addPane(page, getPageSelector(gui, pages, page - 1, 0));
+                    pages.addPane(page, getPageSelector(session, pages, page - 1, 0));
                 }
 
-                if (itemsOnPage.size() == 28 && itemsOnPage.size() + page * 28 != shops.size()) {
-                    pages.addPane(page, getPageSelector(gui, pages, page + 1, 8));
+                if (itemsOnPage.size() == 28
+                        && itemsOnPage.size() + page * 28 != shopNames.size()) {
+                    pages.addPane(page, getPageSelector(session, pages, page + 1, 8));
                 }
 
                 pages.addPane(page, pane);
                 if (section.isBackEnabled()) {
-                    pages.addPane(page, getBackToSectionsPane(player, gui));
+                    pages.addPane(page, getBackToSectionsPane(session));
                 }
                 page++;
                 itemsOnPage.clear();
@@ -236,24 +247,20 @@ public abstract class AutoTuneShopFormat {
         return pages;
     }
 
-    private StaticPane getBackToSectionsPane(@NotNull Player player, @NotNull ChestGui gui) {
+    private StaticPane getBackToSectionsPane(@NotNull ShopSession session) {
         StaticPane pane = new StaticPane(0, 0, 1, 1, Priority.HIGHEST);
         ItemStack item = new ItemStack(Material.ARROW);
         item.editMeta(meta -> meta.displayName(Format.getComponent(
                 "<b><white>Back to menu").asComponent()));
         pane.addItem(new GuiItem(item, event -> {
             event.setCancelled(true);
-            gui.getPanes().clear();
-            getBackground(gui);
-            gui.addPane(loadSectionsPane(player, gui));
-            gui.addPane(getGdpPane(player, gui));
-            gui.update();
+            showSections(session);
         }), 0, 0);
         return pane;
     }
 
-    private StaticPane getPageSelector(@NotNull ChestGui gui, @NotNull PaginatedPane pages,
-            int page, int x) {
+    private StaticPane getPageSelector(@NotNull ShopSession session,
+            @NotNull PaginatedPane pages, int page, int x) {
         StaticPane pane = new StaticPane(x, 5, 1, 1, Priority.HIGHEST);
         ItemStack item = new ItemStack(Material.ARROW);
         item.editMeta(meta -> meta.displayName(Format.getComponent(
@@ -261,12 +268,12 @@ public abstract class AutoTuneShopFormat {
         pane.addItem(new GuiItem(item, event -> {
             event.setCancelled(true);
             pages.setPage(page);
-            gui.update();
+            session.update();
         }), 0, 0);
         return pane;
     }
 
-    protected StaticPane getBackToShop(@NotNull Player player, @NotNull ChestGui gui,
+    protected StaticPane getBackToShop(@NotNull ShopSession session,
             @NotNull String sectionName) {
         StaticPane pane = new StaticPane(0, 0, 1, 1, Priority.HIGHEST);
         ItemStack item = new ItemStack(Material.ARROW);
@@ -274,30 +281,7 @@ public abstract class AutoTuneShopFormat {
         item.editMeta(meta -> meta.displayName(section.getItem().displayName()));
         pane.addItem(new GuiItem(item, event -> {
             event.setCancelled(true);
-            gui.getPanes().clear();
-            getBackground(gui);
-            gui.addPane(loadShopPane(player, gui, section));
-            gui.addPane(getGdpPane(player, gui));
-            gui.update();
-        }), 0, 0);
-        return pane;
-    }
-
-    protected StaticPane getGdpPane(@NotNull Player player, @NotNull ChestGui gui) {
-        ItemStack item = new ItemStack(Material.GOLD_INGOT);
-        TagResolver r = getGdpTagResolver();
-        item.editMeta(meta -> meta.displayName(Format.getComponent(
-                Config.get().getShopGdpLore().get(0), r)));
-        List<Component> lore = new ArrayList<>();
-
-        for (int i = 1; i < Config.get().getShopGdpLore().size(); i++) {
-            lore.add(Format.getComponent(Config.get().getShopGdpLore().get(i), r));
-        }
-
-        item.lore(lore);
-        StaticPane pane = new StaticPane(8, 0, 1, 1, Priority.HIGHEST);
-        pane.addItem(new GuiItem(item, event -> {
-            event.setCancelled(true);
+            showShop(session, sectionName);
         }), 0, 0);
         return pane;
     }
@@ -332,73 +316,12 @@ public abstract class AutoTuneShopFormat {
         return new GuiItem(item);
     }
 
-    protected TagResolver getGdpTagResolver() {
-        double gdp = EconomyDataUtil.getGdp();
-        double bal = EconomyDataUtil.getBalance();
-        int capita = EconomyDataUtil.getPopulation();
-        double loss = EconomyDataUtil.getLoss();
-        double debt = EconomyDataUtil.getDebt();
-        double inflation = EconomyDataUtil.getInflation();
-
-        TagResolver.Builder builder = TagResolver.builder();
-        builder.resolver(Placeholder.parsed("gdp", Format.currency(gdp)));
-        builder.resolver(Placeholder.parsed("balance", Format.currency(bal)));
-        builder.resolver(Placeholder.parsed("population", Format.number(capita)));
-        builder.resolver(Placeholder.parsed("loss", Format.currency(loss)));
-        builder.resolver(Placeholder.parsed("debt", Format.currency(debt)));
-        builder.resolver(Placeholder.parsed("inflation", Format.percent(inflation)));
-        builder.resolver(Placeholder.parsed("gdp-per-capita", Format.currency(gdp / capita)));
-        builder.resolver(Placeholder.parsed("balance-per-capita", Format.currency(bal / capita)));
-        builder.resolver(Placeholder.parsed("loss-per-capita", Format.currency(loss / capita)));
-        builder.resolver(Placeholder.parsed("debt-per-capita", Format.currency(debt / capita)));
-
-        return builder.build();
-    }
-
     protected List<Component> getLore(@NotNull Player player, @NotNull String name,
             @NotNull List<String> lore, int amount) {
-        Shop shop = ShopUtil.getShop(name, true);
-        boolean autosellSetting = false;
-
-        if (Config.get().getAutosell().get(player.getUniqueId() + "." + name) != null) {
-            autosellSetting = Config.get().getAutosell().getBoolean(
-                    player.getUniqueId() + "." + name);
-        }
-
-        String change = Format.percent(shop.getChange());
-        if (shop.getChange() > 0) {
-            change = "<green>" + change + "</green>";
-        } else if (shop.getChange() < 0) {
-            change = "<red>" + change + "</red>";
-        }
-
-        List<Component> loreComponents = new ArrayList<>();
-        TagResolver resolver = TagResolver.resolver(
-                Placeholder.parsed("price", Format.currency(shop.getPrice())),
-                Placeholder.parsed("sell-price", Format.currency(shop.getSellPrice())),
-                Placeholder.parsed("total-price", Format.currency(amount * shop.getPrice())),
-                Placeholder.parsed("total-sell-price",
-                        Format.currency(amount * shop.getSellPrice())),
-                Placeholder.parsed("amount", Format.number(amount)),
-                Placeholder.parsed("buys-left", Format.number(ShopUtil.getBuysLeft(player, name))),
-                Placeholder.parsed("sells-left",
-                        Format.number(ShopUtil.getSellsLeft(player, name))),
-                Placeholder.parsed("max-buys", Format.number(shop.getMaxBuys())),
-                Placeholder.parsed("max-sells", Format.number(shop.getMaxSells())),
-                Placeholder.parsed("change", change),
-                Placeholder.parsed("collect-first-setting",
-                        shop.getSetting().getSetting().toString()),
-                Placeholder.parsed("autosell-setting", autosellSetting ? "enabled" : "disabled"));
-
-        for (String line : lore) {
-            loreComponents.add(Format.getComponent(line, resolver));
-        }
-
-        return loreComponents;
+        return ShopRenderCache.getLore(player, name, lore, amount);
     }
 
-    protected abstract void doShop(@NotNull HumanEntity player, @NotNull ChestGui gui,
-            @NotNull String shopName);
+    protected abstract void doShop(@NotNull ShopSession session, @NotNull String shopName);
 
     protected abstract List<Component> applyLore(@NotNull Player player,
             @NotNull String shopName, int amount);
@@ -1,19 +1,14 @@
 package unprotesting.com.github.commands;
 
-import com.github.stefvanschie.inventoryframework.gui.type.ChestGui;
 import java.util.List;
-import java.util.UUID;
 import net.kyori.adventure.text.Component;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.entity.HumanEntity;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import unprotesting.com.github.AutoTune;
 import unprotesting.com.github.config.Config;
-import unprotesting.com.github.data.Section;
 import unprotesting.com.github.data.Shop;
 import unprotesting.com.github.data.ShopUtil;
 import unprotesting.com.github.util.Format;
@@ -31,6 +26,11 @@ public class AutosellCommand extends AutoTuneShopFormat implements CommandExecut
     public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command,
             @NotNull String label, @NotNull String[] args) {
 
+        if (!ShopUtil.isReady()) {
+            Format.sendMessage(sender, Config.get().getNotReady());
+            return true;
+        }
+
         if (sender instanceof Player) {
             return interpret((Player) sender, args);
         }
@@ -40,34 +40,19 @@ public class AutosellCommand extends AutoTuneShopFormat implements CommandExecut
     }
 
     @Override
-    protected void doShop(@NotNull HumanEntity player, @NotNull ChestGui gui,
-            @NotNull String shopName) {
+    protected void doShop(@NotNull ShopSession session, @NotNull String shopName) {
         Shop shop = ShopUtil.getShop(shopName, true);
 
         if (shop.isEnchantment()) {
-            Format.sendMessage(player, "<red>You cannot autosell enchanted items at the moment.");
+            Format.sendMessage(session.getPlayer(),
+                    "<red>You cannot autosell enchanted items at the moment.");
             return;
         }
 
-        Player user = (Player) player;
-        UUID uuid = user.getUniqueId();
-        Config config = Config.get();
-        ConfigurationSection autosell = config.getAutosell();
-
-        if (autosell.contains(uuid + "." + shopName)) {
-            boolean value = autosell.getBoolean(uuid + "." + shopName);
-            autosell.set(uuid + "." + shopName, !value);
-        } else {
-            autosell.set(uuid + "." + shopName, true);
-        }
-
-        config.setAutosell(autosell);
-        Section section = ShopUtil.getSection(shop.getSection());
-        gui.getPanes().clear();
-        getBackground(gui);
-        gui.addPane(loadShopPane(user, gui, section));
-        gui.addPane(getGdpPane(user, gui));
-        gui.update();
+        ShopUtil.toggleAutosell(session.getPlayer(), shopName);
+        // The setting is not part of the shop, so its epoch does not change.
+        session.invalidate(shopName);
+        session.update();
     }
 
     @Override
@@ -0,0 +1,147 @@
+package unprotesting.com.github.commands;
+
+import com.github.stefvanschie.inventoryframework.gui.GuiItem;
+import com.github.stefvanschie.inventoryframework.pane.Pane.Priority;
+import com.github.stefvanschie.inventoryframework.pane.StaticPane;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.UtilityClass;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import unprotesting.com.github.config.Config;
+import unprotesting.com.github.data.Database;
+import unprotesting.com.github.data.EconomyDataUtil;
+import unprotesting.com.github.util.Format;
+import unprotesting.com.github.util.MessageTemplate;
+import unprotesting.com.github.util.MessageTemplate.Slots;
+
+/**
+ * The GDP item shown in the shop GUI, shared by every player.
+ *
+ * <p>The economy data is read and rendered at most once per gdp-refresh-interval, or
+ * again when a time period ends. Opening or clicking through the GUI only copies the
+ * rendered name and lore onto the item, and only when they changed since it was shown.
+ */
+@UtilityClass
+public class GdpSnapshot {
+
+    // The latest rendered GDP item.
+    private static volatile Rendered latest;
+
+    /**
+     * Create the pane that shows the GDP item in a shop GUI.
+     *
+     * @return The header, to be updated before it is shown.
+     */
+    public Header newHeader() {
+        return new Header();
+    }
+
+    /**
+     * Remove the rendered item, after the config was reloaded.
+     */
+    public void clear() {
+        latest = null;
+    }
+
+    private Rendered get() {
+        Rendered rendered = latest;
+        long now = System.currentTimeMillis();
+        int period = Database.get().getEconomy().getPeriod();
+
+        if (rendered != null && rendered.period == period
+                && now - rendered.time < Config.get().getGdpRefreshInterval() * 1000L) {
+            return rendered;
+        }
+
+        // Two players may render at the same time, which is harmless.
+        rendered = render(now, period);
+        latest = rendered;
+        return rendered;
+    }
+
+    private Rendered render(long time, int period) {
+        Slots r = getSlots();
+        List<String> lines = Config.get().getShopGdpLore();
+        List<Component> lore = new ArrayList<>();
+
+        for (int i = 1; i < lines.size(); i++) {
+            lore.add(Format.getComponent(lines.get(i), r));
+        }
+
+        return new Rendered(time, period, Format.getComponent(lines.get(0), r),
+                List.copyOf(lore));
+    }
+
+    private Slots getSlots() {
+        double gdp = EconomyDataUtil.getGdp();
+        double bal = EconomyDataUtil.getBalance();
+        int capita = EconomyDataUtil.getPopulation();
+        double loss = EconomyDataUtil.getLoss();
+        double debt = EconomyDataUtil.getDebt();
+        double inflation = EconomyDataUtil.getInflation();
+
+        return MessageTemplate.slots()
+                .parsed("gdp", Format.currency(gdp))
+                .parsed("balance", Format.currency(bal))
+                .parsed("population", Format.number(capita))
+                .parsed("loss", Format.currency(loss))
+                .parsed("debt", Format.currency(debt))
+                .parsed("inflation", Format.percent(inflation))
+                .parsed("gdp-per-capita", Format.currency(gdp / capita))
+                .parsed("balance-per-capita", Format.currency(bal / capita))
+                .parsed("loss-per-capita", Format.currency(loss / capita))
+                .parsed("debt-per-capita", Format.currency(debt / capita));
+    }
+
+    /**
+     * The GDP pane of a shop GUI.
+     */
+    public static class Header {
+
+        // The item in the pane.
+        private final GuiItem item;
+        // The pane.
+        @Getter
+        private final StaticPane pane;
+        // The rendered item the pane shows, or null if it shows none yet.
+        private Rendered shown;
+
+        private Header() {
+            this.item = new GuiItem(new ItemStack(Material.GOLD_INGOT),
+                    event -> event.setCancelled(true));
+            this.pane = new StaticPane(8, 0, 1, 1, Priority.HIGHEST);
+            pane.addItem(item, 0, 0);
+        }
+
+        /**
+         * Show the latest GDP name and lore, if the pane does not show them already.
+         */
+        public void update() {
+            Rendered rendered = get();
+
+            if (rendered != shown) {
+                item.getItem().editMeta(meta -> {
+                    meta.displayName(rendered.name);
+                    meta.lore(rendered.lore);
+                });
+                shown = rendered;
+            }
+        }
+
+    }
+
+    @AllArgsConstructor
+    private static class Rendered {
+        // When the item was rendered.
+        private final long time;
+        // The time period it was rendered in.
+        private final int period;
+        private final Component name;
+        private final List<Component> lore;
+    }
+
+}
@@ -1,7 +1,6 @@
 package unprotesting.com.github.commands;
 
 import java.util.Map;
-import java.util.UUID;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -11,6 +10,8 @@ import unprotesting.com.github.AutoTune;
 import unprotesting.com.github.config.Config;
 import unprotesting.com.github.data.Database;
 import unprotesting.com.github.data.Loan;
+import unprotesting.com.github.data.LoanLedger;
+import unprotesting.com.github.data.ShopUtil;
 import unprotesting.com.github.util.EconomyUtil;
 import unprotesting.com.github.util.Format;
 
@@ -27,6 +28,11 @@ public class LoanCommand implements CommandExecutor {
     public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command,
             @NotNull String label, @NotNull String[] args) {
 
+        if (!ShopUtil.isReady()) {
+            Format.sendMessage(sender, Config.get().getNotReady());
+            return true;
+        }
+
         if (!(sender instanceof Player)) {
             Format.sendMessage(sender, "<red>This command is for players only.");
             return true;
@@ -37,25 +43,19 @@ public class LoanCommand implements CommandExecutor {
             getTotalLoans(player);
             Format.sendMessage(player, "<gold>Usage: /loan <amount/pay>");
         } else if (args[0].equalsIgnoreCase("pay") || args[0].equalsIgnoreCase("payback")) {
-            Database database = Database.get();
-            for (Map.Entry<Long, Loan> entry : Database.get().getLoans().entrySet()) {
+            LoanLedger loans = Database.get().getLoans();
+            for (Map.Entry<Long, Loan> entry
+                    : loans.getOpenLoans(player.getUniqueId()).entrySet()) {
                 Loan loan = entry.getValue();
-                if (loan.getPlayer().equals(player.getUniqueId())) {
-
-                    if (loan.isPaid()) {
-                        continue;
-                    }
-
-                    if (loan.payBack()) {
-                        Format.sendMessage(player, "<green>You have paid back your loan of "
-                                + Format.currency(loan.getValue()) + ".");
-                    } else {
-                        Format.sendMessage(player,
-                                "<red>You do not have enough money to pay back your loan.");
-                    }
-                    database.updateLoan(entry.getKey(), loan);
 
+                if (loan.payBack()) {
+                    Format.sendMessage(player, "<green>You have paid back your loan of "
+                            + Format.currency(loan.getValue()) + ".");
+                } else {
+                    Format.sendMessage(player,
+                            "<red>You do not have enough money to pay back your loan.");
                 }
+                loans.update(entry.getKey(), loan);
             }
         } else {
             double value = 0;
@@ -85,27 +85,15 @@ public class LoanCommand implements CommandExecutor {
                     .player(player.getUniqueId())
                     .paid(false)
                     .build();
-            Database.get().getLoans().put(System.currentTimeMillis(), loan);
-            EconomyUtil.getEconomy().depositPlayer(player, base);
+            Database.get().getLoans().add(loan);
+            EconomyUtil.deposit(player, base);
             getTotalLoans(player);
         }
         return true;
     }
 
     private void getTotalLoans(@NotNull Player player) {
-        UUID uuid = player.getUniqueId();
-        double total = 0;
-
-        for (Loan loan : Database.get().getLoans().values()) {
-            if (loan.getPlayer().equals(uuid)) {
-                if (loan.isPaid()) {
-                    continue;
-                }
-
-                total += loan.getValue();
-            }
-        }
-
+        double total = Database.get().getLoans().getTotal(player.getUniqueId());
         Format.sendMessage(player, "<green>You have " + Format.currency(total) + " in loans.");
     }
 
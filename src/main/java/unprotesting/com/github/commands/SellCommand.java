@@ -1,7 +1,6 @@
 package unprotesting.com.github.commands;
 
 import com.github.stefvanschie.inventoryframework.gui.type.ChestGui;
-import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -15,6 +14,7 @@ import unprotesting.com.github.data.Shop;
 import unprotesting.com.github.data.ShopUtil;
 import unprotesting.com.github.util.EconomyUtil;
 import unprotesting.com.github.util.Format;
+import unprotesting.com.github.util.MessageTemplate.Slots;
 
 import java.util.HashMap;
 
@@ -31,6 +31,11 @@ public class SellCommand implements CommandExecutor {
     public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command,
             @NotNull String label, @NotNull String[] args) {
 
+        if (!ShopUtil.isReady()) {
+            Format.sendMessage(sender, Config.get().getNotReady());
+            return true;
+        }
+
         if (sender instanceof Player) {
             return interpret((Player) sender);
         }
@@ -73,7 +78,7 @@ public class SellCommand implements CommandExecutor {
                             player.getWorld().dropItem(player.getLocation(), failed.get(0));
                         }
 
-                        TagResolver resolver = PurchaseUtil.getTagResolver(item.displayName(), 0, amountCantSell, EconomyUtil.getEconomy().getBalance(player), null);
+                        Slots resolver = PurchaseUtil.getSlots(item.displayName(), 0, amountCantSell, EconomyUtil.getEconomy().getBalance(player), null);
                         Format.sendMessage(player, config.getRunOutOfSells(), resolver);
 
                         item.setAmount(sellsLeft);
@@ -1,7 +1,6 @@
 package unprotesting.com.github.commands;
 
 import com.github.stefvanschie.inventoryframework.gui.GuiItem;
-import com.github.stefvanschie.inventoryframework.gui.type.ChestGui;
 import com.github.stefvanschie.inventoryframework.pane.OutlinePane;
 import com.github.stefvanschie.inventoryframework.pane.Pane.Priority;
 import java.util.List;
@@ -13,7 +12,6 @@ import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.enchantments.Enchantment;
-import org.bukkit.entity.HumanEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
@@ -41,6 +39,11 @@ public class ShopCommand extends AutoTuneShopFormat implements CommandExecutor {
     public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command,
             @NotNull String label, @NotNull String[] args) {
 
+        if (!ShopUtil.isReady()) {
+            Format.sendMessage(sender, Config.get().getNotReady());
+            return true;
+        }
+
         if (sender instanceof Player) {
             return interpret((Player) sender, args);
         }
@@ -50,14 +53,13 @@ public class ShopCommand extends AutoTuneShopFormat implements CommandExecutor {
     }
 
     @Override
-    protected void doShop(@NotNull HumanEntity player, @NotNull ChestGui gui,
-            @NotNull String shopName) {
-        gui.getPanes().clear();
-        getBackground(gui);
-        gui.addPane(getGdpPane((Player) player, gui));
-        gui.addPane(getBackToShop((Player) player, gui, ShopUtil.getShop(shopName, true).getSection()));
-        gui.addPane(getPurchasePane((Player) player, gui, shopName));
-        gui.update();
+    protected void doShop(@NotNull ShopSession session, @NotNull String shopName) {
+        String section = ShopUtil.getShop(shopName, true).getSection();
+        String back = "back:" + section;
+        String purchase = "purchase:" + shopName;
+        session.getPane(back, () -> getBackToShop(session, section));
+        session.getPane(purchase, () -> getPurchasePane(session, purchase, shopName));
+        session.show(back, purchase);
     }
 
     protected static void update(@NotNull Player player) {
@@ -67,8 +69,9 @@ public class ShopCommand extends AutoTuneShopFormat implements CommandExecutor {
         Format.sendMessage(player, "<green>Prices updated!");
     }
 
-    private OutlinePane getPurchasePane(@NotNull Player player,
-            @NotNull ChestGui gui, @NotNull String shopName) {
+    private OutlinePane getPurchasePane(@NotNull ShopSession session, @NotNull String key,
+            @NotNull String shopName) {
+        Player player = session.getPlayer();
         Shop shop = ShopUtil.getShop(shopName, true);
         int length = shop.isEnchantment() ? ENCHANTMENT_AMOUNTS.length : AMOUNTS.length;
         OutlinePane pane = new OutlinePane(1, 2, length, 2, Priority.HIGHEST);
@@ -110,22 +113,17 @@ public class ShopCommand extends AutoTuneShopFormat implements CommandExecutor {
                     }
                 }
 
-                List<Component> loreList = getLore(player, shopName, lore, amount);
                 item.setAmount(amount);
-                item.lore(loreList);
+                final List<String> loreLines = lore;
                 final boolean isBuy = buy;
                 final int finalAmount = amount;
                 GuiItem guiItem = new GuiItem(item, event -> {
                     event.setCancelled(true);
                     PurchaseUtil.purchaseItem(shopName, player, finalAmount, isBuy);
-                    gui.getPanes().clear();
-                    getBackground(gui);
-                    gui.addPane(getGdpPane(player, gui));
-                    gui.addPane(getBackToShop(player, gui,
-                            ShopUtil.getShop(shopName, true).getSection()));
-                    gui.addPane(getPurchasePane(player, gui, shopName));
-                    gui.update();
+                    session.update();
                 });
+                session.addItem(key, guiItem, shopName,
+                        () -> getLore(player, shopName, loreLines, finalAmount));
                 pane.addItem(guiItem);
             }
             buy = false;
@@ -0,0 +1,170 @@
+package unprotesting.com.github.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.experimental.UtilityClass;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import unprotesting.com.github.data.Shop;
+import unprotesting.com.github.data.ShopUtil;
+import unprotesting.com.github.util.Format;
+import unprotesting.com.github.util.MessageTemplate;
+import unprotesting.com.github.util.MessageTemplate.Slots;
+
+/**
+ * The cache of the items and lore shown in the shop GUI.
+ *
+ * <p>Lore is rendered once per shop, lore template and amount, and reused until the
+ * price epoch of the shop changes, see {@link Shop#getEpoch()}. Placeholders that
+ * depend on the player are left as slots and filled in as the last step, see
+ * {@link MessageTemplate}.
+ */
+@UtilityClass
+public class ShopRenderCache {
+
+    // The placeholders that depend on the player viewing the shop.
+    private static final String[] PLAYER_TAGS = { "buys-left", "sells-left", "autosell-setting" };
+
+    // The item with its display name for each shop, copied for every render.
+    private static final Map<String, ItemStack> items = new ConcurrentHashMap<>();
+    // The rendered lore for each shop, lore template and amount.
+    private static final Map<Key, Rendered> lore = new ConcurrentHashMap<>();
+
+    /**
+     * Get the item shown for a shop, without lore.
+     *
+     * @param name The name of the shop.
+     * @param shop The shop.
+     * @return A new copy of the item.
+     */
+    public ItemStack getItem(@NotNull String name, @NotNull Shop shop) {
+        return items.computeIfAbsent(name, key -> createItem(key, shop.isEnchantment())).clone();
+    }
+
+    /**
+     * Get the lore of a shop for a player.
+     *
+     * @param player The player viewing the shop.
+     * @param name   The name of the shop.
+     * @param lines  The lore template from the config.
+     * @param amount The amount being bought or sold.
+     * @return The lore.
+     */
+    public List<Component> getLore(@NotNull Player player, @NotNull String name,
+            @NotNull List<String> lines, int amount) {
+        Shop shop = ShopUtil.getShop(name, true);
+        Key key = new Key(name, lines, amount);
+        Rendered rendered = lore.get(key);
+        int epoch = shop.getEpoch();
+
+        if (rendered == null || rendered.epoch != epoch) {
+            rendered = render(shop, lines, amount, epoch);
+            lore.put(key, rendered);
+        }
+
+        if (rendered.personal == null) {
+            return rendered.lines;
+        }
+
+        Slots slots = MessageTemplate.slots()
+                .parsed("buys-left", Format.number(shop.getBuysLeft(player.getUniqueId())))
+                .parsed("sells-left", Format.number(shop.getSellsLeft(player.getUniqueId())))
+                .parsed("autosell-setting",
+                        ShopUtil.isAutosell(player, name) ? "enabled" : "disabled");
+
+        List<Component> result = new ArrayList<>(rendered.lines.size());
+        for (int i = 0; i < rendered.lines.size(); i++) {
+            Component line = rendered.lines.get(i);
+            result.add(rendered.personal[i] ? MessageTemplate.complete(line, slots) : line);
+        }
+
+        return result;
+    }
+
+    /**
+     * Remove everything rendered, after the config was reloaded.
+     */
+    public void clear() {
+        items.clear();
+        lore.clear();
+    }
+
+    private Rendered render(Shop shop, List<String> lines, int amount, int epoch) {
+        String change = Format.percent(shop.getChange());
+        if (shop.getChange() > 0) {
+            change = "<green>" + change + "</green>";
+        } else if (shop.getChange() < 0) {
+            change = "<red>" + change + "</red>";
+        }
+
+        Slots slots = MessageTemplate.slots()
+                .parsed("price", Format.currency(shop.getPrice()))
+                .parsed("sell-price", Format.currency(shop.getSellPrice()))
+                .parsed("total-price", Format.currency(amount * shop.getPrice()))
+                .parsed("total-sell-price", Format.currency(amount * shop.getSellPrice()))
+                .parsed("amount", Format.number(amount))
+                .parsed("max-buys", Format.number(shop.getMaxBuys()))
+                .parsed("max-sells", Format.number(shop.getMaxSells()))
+                .parsed("change", change)
+                .parsed("strength", Format.percent(shop.strength()))
+                .parsed("next-price", Format.currency(shop.getNextPrice()))
+                .parsed("collect-first-setting", shop.getSetting().getSetting().toString());
+
+        List<Component> components = new ArrayList<>(lines.size());
+        boolean[] personal = new boolean[lines.size()];
+        boolean any = false;
+
+        for (int i = 0; i < lines.size(); i++) {
+            MessageTemplate template = MessageTemplate.get(lines.get(i));
+            for (String tag : PLAYER_TAGS) {
+                personal[i] |= template.getSlots().contains(tag);
+            }
+            // Lines with player placeholders keep their slots for getLore to fill.
+            components.add(personal[i] ? template.fill(slots) : template.render(slots));
+            any |= personal[i];
+        }
+
+        return new Rendered(epoch, List.copyOf(components), any ? personal : null);
+    }
+
+    private ItemStack createItem(String name, boolean isEnchantment) {
+        if (isEnchantment) {
+            ItemStack item = new ItemStack(Material.ENCHANTED_BOOK);
+            Enchantment enchantment = Enchantment.getByKey(NamespacedKey.minecraft(name));
+            item.editMeta(meta -> meta.displayName(Component.translatable(enchantment)));
+            return item;
+        }
+
+        Material material = Objects.requireNonNull(Material.matchMaterial(name));
+        ItemStack item = new ItemStack(material);
+        item.editMeta(meta -> meta.displayName(Component.translatable(material)));
+        return item;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class Key {
+        private final String name;
+        private final List<String> lines;
+        private final int amount;
+    }
+
+    @AllArgsConstructor
+    private static class Rendered {
+        private final int epoch;
+        private final List<Component> lines;
+        // Whether each line has player placeholders, or null if none do.
+        private final boolean[] personal;
+    }
+
+}
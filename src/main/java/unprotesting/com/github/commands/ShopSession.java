@@ -0,0 +1,177 @@
+package unprotesting.com.github.commands;
+
+import com.github.stefvanschie.inventoryframework.gui.GuiItem;
+import com.github.stefvanschie.inventoryframework.gui.type.ChestGui;
+import com.github.stefvanschie.inventoryframework.pane.Pane;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.Getter;
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import unprotesting.com.github.data.Shop;
+import unprotesting.com.github.data.ShopUtil;
+
+/**
+ * The panes of a shop GUI opened by a player.
+ *
+ * <p>Each pane is built the first time the player opens it and kept for as long as the
+ * GUI is open, so moving between sections and shops only swaps the panes shown. Items
+ * that show a shop are registered with the pane they are in, and their lore is updated
+ * in place when the price epoch of the shop changed since it was last shown.
+ */
+public class ShopSession {
+
+    // The player viewing the GUI.
+    @Getter
+    private final Player player;
+    // The GUI.
+    @Getter
+    private final ChestGui gui;
+    // The panes built so far, by key.
+    private final Map<String, Pane> panes = new HashMap<>();
+    // The shop items in each pane, by pane key.
+    private final Map<String, List<ShopItem>> items = new HashMap<>();
+    // The keys of the panes being shown.
+    private String[] shown = new String[0];
+    // The pane shown with every view, like the GDP pane.
+    private final Pane header;
+    // Updates the header before it is shown.
+    private final Runnable headerUpdate;
+
+    /**
+     * Constructor for a shop session.
+     *
+     * @param player       The player viewing the GUI.
+     * @param gui          The GUI.
+     * @param header       The pane shown with every view.
+     * @param headerUpdate Updates the header in place before it is shown.
+     */
+    protected ShopSession(@NotNull Player player, @NotNull ChestGui gui, @NotNull Pane header,
+            @NotNull Runnable headerUpdate) {
+        this.player = player;
+        this.gui = gui;
+        this.header = header;
+        this.headerUpdate = headerUpdate;
+    }
+
+    /**
+     * Get a pane, building it the first time.
+     *
+     * @param key     The key of the pane.
+     * @param builder Builds the pane.
+     * @return The pane.
+     */
+    protected Pane getPane(@NotNull String key, @NotNull Supplier<Pane> builder) {
+        Pane pane = panes.get(key);
+        if (pane == null) {
+            pane = builder.get();
+            panes.put(key, pane);
+        }
+        return pane;
+    }
+
+    /**
+     * Register an item that shows a shop, setting its lore.
+     *
+     * @param key  The key of the pane the item is in.
+     * @param item The item.
+     * @param shop The name of the shop.
+     * @param lore Renders the lore of the item.
+     */
+    protected void addItem(@NotNull String key, @NotNull GuiItem item, @NotNull String shop,
+            @NotNull Supplier<List<Component>> lore) {
+        ShopItem shopItem = new ShopItem(item, shop, lore);
+        shopItem.refresh(true);
+        items.computeIfAbsent(key, k -> new ArrayList<>()).add(shopItem);
+    }
+
+    /**
+     * Show panes that were built with {@link #getPane(String, Supplier)}, behind the
+     * background and header.
+     *
+     * @param keys The keys of the panes.
+     */
+    protected void show(@NotNull String... keys) {
+        gui.getPanes().clear();
+        AutoTuneShopFormat.getBackground(gui);
+        gui.addPane(header);
+        for (String key : keys) {
+            gui.addPane(panes.get(key));
+        }
+        shown = keys;
+        update();
+    }
+
+    /**
+     * Update the header and the lore of the shown shop items that changed, then
+     * update the inventory if it is open.
+     */
+    protected void update() {
+        headerUpdate.run();
+        refresh(false);
+        if (!gui.getViewers().isEmpty()) {
+            gui.update();
+        }
+    }
+
+    /**
+     * Render the lore of a shop's shown items again, even if its price epoch did
+     * not change, for settings of the player like autosell.
+     *
+     * @param shop The name of the shop.
+     */
+    protected void invalidate(@NotNull String shop) {
+        for (String key : shown) {
+            for (ShopItem item : items.getOrDefault(key, List.of())) {
+                if (item.shop.equals(shop)) {
+                    item.epoch = -1;
+                }
+            }
+        }
+    }
+
+    private void refresh(boolean force) {
+        for (String key : shown) {
+            for (ShopItem item : items.getOrDefault(key, List.of())) {
+                item.refresh(force);
+            }
+        }
+    }
+
+    private static class ShopItem {
+
+        // The item in the GUI.
+        private final GuiItem item;
+        // The name of the shop the item shows.
+        private final String shop;
+        // Renders the lore of the item.
+        private final Supplier<List<Component>> lore;
+        // The price epoch of the shop when the lore was rendered, -1 to render it again.
+        private int epoch = -1;
+
+        private ShopItem(GuiItem item, String shop, Supplier<List<Component>> lore) {
+            this.item = item;
+            this.shop = shop;
+            this.lore = lore;
+        }
+
+        private void refresh(boolean force) {
+            Shop current = ShopUtil.getShop(shop, false);
+            if (current == null) {
+                return;
+            }
+
+            int latest = current.getEpoch();
+            if (force || latest != epoch) {
+                item.getItem().lore(lore.get());
+                epoch = latest;
+            }
+        }
+
+    }
+
+}
@@ -1,17 +1,16 @@
 package unprotesting.com.github.config;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Level;
 import lombok.Getter;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
-import org.jetbrains.annotations.NotNull;
 import unprotesting.com.github.AutoTune;
 import unprotesting.com.github.util.AutoTuneLogger;
 import unprotesting.com.github.util.Format;
+import unprotesting.com.github.util.MessageTemplate;
 
 /**
  * The class for loading and storing the configuration options.
@@ -31,6 +30,8 @@ public class Config {
 
     private final double timePeriod;
     private final double volatility;
+    private final double strengthM;
+    private final double strengthZ;
     private final double sellPriceDifference;
     private final boolean durabilityFunction;
     private final Integer minimumPlayers;
@@ -44,6 +45,12 @@ public class Config {
     private final boolean enableSellLimits;
     private final boolean enableCollection;
     private final boolean enableLoans;
+    private final int flushInterval;
+    private final int transactionRetention;
+    private final boolean detectRelations;
+    private final int reconcileInterval;
+    private final int economyHistory;
+    private final int gdpRefreshInterval;
 
     private final String notInShop;
     private final String notEnoughMoney;
@@ -58,6 +65,7 @@ public class Config {
     private final String enchantmentError;
     private final String autosellProfit;
     private final String invalidShopSection;
+    private final String notReady;
     private final String backgroundPaneText;
 
     private final List<String> shopLore;
@@ -71,7 +79,8 @@ public class Config {
 
     private final ConfigurationSection shops;
     private final ConfigurationSection sections;
-    private ConfigurationSection autosell;
+    // The autosell settings saved by older versions, imported once into the database.
+    private final ConfigurationSection autosell;
 
     /**
      * Initializes the config files.
@@ -128,6 +137,10 @@ public class Config {
         logger.finer("Time period: " + timePeriod);
         this.volatility = configs[0].getDouble("volatility", 0.5);
         logger.finer("Volatility: " + volatility);
+        this.strengthM = positive(configs[0].getDouble("strength-m", 0.05), 0.05, "strength-m");
+        logger.finer("Strength M: " + strengthM);
+        this.strengthZ = positive(configs[0].getDouble("strength-z", 1.75), 1.75, "strength-z");
+        logger.finer("Strength Z: " + strengthZ);
         this.sellPriceDifference = configs[0].getDouble("sell-price-difference", 20);
         logger.finer("Sell price difference: " + sellPriceDifference);
         this.durabilityFunction = configs[0].getBoolean("durability-function", true);
@@ -153,6 +166,18 @@ public class Config {
         logger.finer("Collection Enabled: " + enableCollection);
         this.enableLoans = configs[0].getBoolean("enable-loans", false);
         logger.finer("Loans Enabled: " + enableLoans);
+        this.flushInterval = configs[0].getInt("flush-interval", 30);
+        logger.finer("Flush interval: " + flushInterval);
+        this.transactionRetention = configs[0].getInt("transaction-retention", 30);
+        logger.finer("Transaction retention: " + transactionRetention);
+        this.detectRelations = configs[0].getBoolean("detect-relations", true);
+        logger.finer("Detect relations: " + detectRelations);
+        this.reconcileInterval = Math.max(1, configs[0].getInt("reconcile-interval", 60));
+        logger.finer("Reconcile interval: " + reconcileInterval);
+        this.economyHistory = Math.max(1, configs[0].getInt("economy-history", 720));
+        logger.finer("Economy history: " + economyHistory);
+        this.gdpRefreshInterval = Math.max(0, configs[0].getInt("gdp-refresh-interval", 5));
+        logger.finer("GDP refresh interval: " + gdpRefreshInterval);
 
         this.notInShop = configs[3].getString("not-in-shop");
         logger.finest("Not in shop: " + notInShop);
@@ -180,6 +205,9 @@ public class Config {
         logger.finest("Autosell profit: " + autosellProfit);
         this.invalidShopSection = configs[3].getString("invalid-shop-section");
         logger.finest("Invalid shop section: " + invalidShopSection);
+        this.notReady = configs[3].getString("not-ready",
+                "<c:#F37C3B>The shop is still loading, please try again in a moment.");
+        logger.finest("Not ready: " + notReady);
         this.backgroundPaneText = configs[3].getString("background-pane-text", "<obf>|</obf>");
         logger.finest("Background pane text: " + backgroundPaneText);
 
@@ -199,6 +227,7 @@ public class Config {
         logger.finest("AdminHelp: " + Arrays.toString(adminHelp.toArray()));
         this.tutorial = configs[3].getStringList("tutorial");
         logger.finest("Tutorial: " + Arrays.toString(tutorial.toArray()));
+        logger.finer("Compiled " + MessageTemplate.compileAll(configs[3]) + " messages.");
 
         this.shops = configs[1].getConfigurationSection("shops");
         logger.finer("Loaded shops configuration.");
@@ -209,21 +238,13 @@ public class Config {
         logger.finer("Loaded autosell configuration.");
     }
 
-    /**
-     * Set a new configuration section for autosell data and save it.
-     *
-     * @param section The new section.
-     */
-    public void setAutosell(@NotNull ConfigurationSection section) {
-        this.autosell = section;
-        configs[2] = new YamlConfiguration();
-        configs[2].set("autosell", section);
-        try {
-            configs[2].save(files[2]);
-        } catch (IOException e) {
-            Format.getLog().severe("Could not save playerdata configuration.");
-            Format.getLog().config(e.toString());
+    private double positive(double value, double fallback, String key) {
+        if (value > 0) {
+            return value;
         }
+
+        Format.getLog().warning(key + " must be greater than 0, using " + fallback + ".");
+        return fallback;
     }
 
     private void saveWebFolder() {
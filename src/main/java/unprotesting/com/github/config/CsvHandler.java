@@ -8,6 +8,7 @@ import java.util.Arrays;
 import lombok.Cleanup;
 import org.bukkit.Bukkit;
 import unprotesting.com.github.AutoTune;
+import unprotesting.com.github.data.Database;
 import unprotesting.com.github.data.Shop;
 import unprotesting.com.github.data.ShopUtil;
 import unprotesting.com.github.util.AutoTuneLogger;
@@ -28,6 +29,7 @@ public class CsvHandler {
             try {
                 logger.config("Writing price data to CSV file.");
                 writeCsv();
+                writeRelations();
                 logger.config("Price data written to data.csv");
             } catch (IOException e) {
                 logger.severe("Could not write data to csv file.");
@@ -36,6 +38,18 @@ public class CsvHandler {
         });
     }
 
+    private static void writeRelations() throws IOException {
+        File file = new File(AutoTune.getInstance().getDataFolder() + "/web/data/relations.csv");
+        @Cleanup
+        BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+        writer.write("item,related,correlation,weight");
+        writer.newLine();
+        for (String row : Database.get().getRelations().toCsv()) {
+            writer.write(row);
+            writer.newLine();
+        }
+    }
+
     private static void writeCsv() throws IOException {
         AutoTune instance = AutoTune.getInstance();
         File dataFolder = new File(instance.getDataFolder(), "/web/data");
@@ -70,7 +84,7 @@ public class CsvHandler {
             dataStillPresent = false;
             for (int i = 0; i < size; i++) {
                 if (shops[i].getSize() > t) {
-                    writer.write(shops[i].getPrices()[t] + ",");
+                    writer.write(shops[i].getHistory().getPrice(t) + ",");
                     dataStillPresent = true;
                 } else {
                     writer.write(",");
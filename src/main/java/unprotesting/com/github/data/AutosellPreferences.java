@@ -0,0 +1,125 @@
+package unprotesting.com.github.data;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.bukkit.configuration.ConfigurationSection;
+import org.mapdb.HTreeMap;
+
+/**
+ * The items each player has enabled autosell for.
+ *
+ * <p>Each player has a bit set indexed by the ids from the {@link ItemDictionary}.
+ * Changing a setting only saves the bit set of that player.
+ */
+public class AutosellPreferences {
+
+    // The saved bit sets, as returned by BitSet.toLongArray().
+    private final HTreeMap<UUID, long[]> saved;
+    // The dictionary of item ids.
+    private final ItemDictionary items;
+    // The bit set of autosell items for each player.
+    private final Map<UUID, BitSet> players;
+
+    /**
+     * Constructor for the autosell preferences.
+     *
+     * @param saved The saved map of player to bit set.
+     * @param items The dictionary of item ids.
+     */
+    protected AutosellPreferences(HTreeMap<UUID, long[]> saved, ItemDictionary items) {
+        this.saved = saved;
+        this.items = items;
+        this.players = new HashMap<>();
+
+        for (Map.Entry<UUID, long[]> entry : saved.entrySet()) {
+            players.put(entry.getKey(), BitSet.valueOf(entry.getValue()));
+        }
+    }
+
+    /**
+     * Whether a player has enabled autosell for an item.
+     *
+     * @param player The UUID of the player.
+     * @param item   The name of the item.
+     * @return Whether autosell is enabled.
+     */
+    public synchronized boolean isEnabled(UUID player, String item) {
+        BitSet bits = players.get(player);
+        if (bits == null) {
+            return false;
+        }
+
+        int id = items.findId(item);
+        return id >= 0 && bits.get(id);
+    }
+
+    /**
+     * Enable or disable autosell of an item for a player.
+     *
+     * @param player  The UUID of the player.
+     * @param item    The name of the item.
+     * @param enabled Whether autosell is enabled.
+     */
+    public synchronized void set(UUID player, String item, boolean enabled) {
+        BitSet bits = players.computeIfAbsent(player, uuid -> new BitSet());
+        bits.set(items.getId(item), enabled);
+
+        if (bits.isEmpty()) {
+            players.remove(player);
+            saved.remove(player);
+        } else {
+            saved.put(player, bits.toLongArray());
+        }
+    }
+
+    /**
+     * Switch autosell of an item on or off for a player.
+     *
+     * @param player The UUID of the player.
+     * @param item   The name of the item.
+     * @return Whether autosell is now enabled.
+     */
+    public synchronized boolean toggle(UUID player, String item) {
+        boolean enabled = !isEnabled(player, item);
+        set(player, item, enabled);
+        return enabled;
+    }
+
+    /**
+     * Import the settings saved in playerdata.yml by older versions,
+     * where each key is "uuid.item".
+     *
+     * @param section The autosell section of playerdata.yml.
+     * @return The number of items imported.
+     */
+    protected synchronized int importSection(ConfigurationSection section) {
+        int count = 0;
+
+        for (String uuid : section.getKeys(false)) {
+            ConfigurationSection player = section.getConfigurationSection(uuid);
+
+            if (player == null) {
+                continue;
+            }
+
+            UUID key;
+            try {
+                key = UUID.fromString(uuid);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+
+            for (String item : player.getKeys(false)) {
+                if (player.getBoolean(item, false)) {
+                    set(key, item, true);
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+}
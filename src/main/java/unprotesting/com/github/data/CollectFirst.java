@@ -1,8 +1,7 @@
 package unprotesting.com.github.data;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.BitSet;
 import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -19,8 +18,8 @@ public class CollectFirst implements Serializable {
     // The CollectFirst setting
     @Getter
     protected final CollectFirstSetting setting;
-    // The list of players who have collected the item
-    protected List<UUID> players;
+    // The ids of the players who have collected the item, see PlayerIndex
+    protected BitSet players;
     // Whether the item has been found anywhere on the server
     @Getter
     @Setter
@@ -41,7 +40,7 @@ public class CollectFirst implements Serializable {
             this.setting = CollectFirstSetting.NONE;
         }
 
-        this.players = new ArrayList<>();
+        this.players = new BitSet();
         this.foundInServer = false;
     }
 
@@ -55,13 +54,20 @@ public class CollectFirst implements Serializable {
     }
 
     /**
-     * Adds a player to the list of players who have collected the item.
+     * Adds a player to the players who have collected the item.
+     *
+     * @param player The player uuid.
+     * @return Whether the player was added, false if they had already collected it.
      */
-    public void addPlayer(UUID player) {
-        if (!players.contains(player)) {
-            players.add(player);
+    public synchronized boolean addPlayer(UUID player) {
+        int id = Database.get().getPlayers().getId(player);
+
+        if (players.get(id)) {
+            return false;
         }
 
+        players.set(id);
+        return true;
     }
 
     /**
@@ -71,8 +77,18 @@ public class CollectFirst implements Serializable {
      * @param player The player uuid.
      * @return Whether or not the player is in the map.
      */
-    public boolean playerFound(UUID player) {
-        return players.contains(player);
+    public synchronized boolean playerFound(UUID player) {
+        int id = Database.get().getPlayers().findId(player);
+        return id >= 0 && players.get(id);
+    }
+
+    /**
+     * Get the ids of the players who have collected the item.
+     *
+     * @return A copy of the player ids, as returned by BitSet.toLongArray().
+     */
+    protected synchronized long[] getPlayerIds() {
+        return players.toLongArray();
     }
 
 }
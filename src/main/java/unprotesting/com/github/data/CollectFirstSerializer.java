@@ -1,8 +1,7 @@
 package unprotesting.com.github.data;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.BitSet;
 import java.util.UUID;
 import org.mapdb.DataInput2;
 import org.mapdb.DataOutput2;
@@ -11,16 +10,24 @@ import unprotesting.com.github.data.CollectFirst.CollectFirstSetting;
 
 /**
  * Serializer for CollectFirst class.
+ *
+ * <p>The players are written as a bit set of player ids. Older versions wrote the
+ * number of players followed by their UUIDs, which are given ids when read.
  */
 public class CollectFirstSerializer implements Serializer<CollectFirst> {
 
+    // Written in place of the number of players when they are saved as a bit set.
+    private static final int PLAYER_IDS = -1;
+
     @Override
     public void serialize(DataOutput2 out, CollectFirst value) throws IOException {
         out.writeUTF(value.setting.name());
-        out.writeInt(value.players.size());
+        out.writeInt(PLAYER_IDS);
+        long[] words = value.getPlayerIds();
+        out.packInt(words.length);
 
-        for (UUID player : value.players) {
-            UUID.serialize(out, player);
+        for (long word : words) {
+            out.writeLong(word);
         }
 
         out.writeBoolean(value.foundInServer);
@@ -30,10 +37,20 @@ public class CollectFirstSerializer implements Serializer<CollectFirst> {
     public CollectFirst deserialize(DataInput2 input, int available) throws IOException {
         CollectFirstSetting setting = CollectFirstSetting.valueOf(input.readUTF());
         int size = input.readInt();
-        List<UUID> players = new ArrayList<>();
-
-        for (int i = 0; i < size; i++) {
-            players.add(UUID.deserialize(input, available));
+        BitSet players;
+
+        if (size == PLAYER_IDS) {
+            long[] words = new long[input.unpackInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = input.readLong();
+            }
+            players = BitSet.valueOf(words);
+        } else {
+            PlayerIndex index = Database.get().getPlayers();
+            players = new BitSet();
+            for (int i = 0; i < size; i++) {
+                players.set(index.getId(UUID.deserialize(input, available)));
+            }
         }
 
         boolean foundInServer = input.readBoolean();
@@ -1,71 +1,137 @@
 package unprotesting.com.github.data;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 import lombok.Getter;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.enchantments.Enchantment;
-import org.eclipse.collections.api.tuple.Pair;
-import org.eclipse.collections.impl.tuple.Tuples;
+import org.bukkit.scheduler.BukkitTask;
+import org.mapdb.Atomic;
+import org.mapdb.BTreeMap;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
 import org.mapdb.HTreeMap;
 import org.mapdb.Serializer;
+import org.mapdb.serializer.SerializerArrayTuple;
 import org.mapdb.serializer.SerializerCompressionWrapper;
 import unprotesting.com.github.AutoTune;
 import unprotesting.com.github.config.Config;
 import unprotesting.com.github.config.CsvHandler;
 import unprotesting.com.github.util.AutoTuneLogger;
-import unprotesting.com.github.util.EconomyUtil;
 import unprotesting.com.github.util.Format;
 
 /**
  * The database for the plugin.
+ *
+ * <p>Shops are kept in memory and the cached instances are the source of truth while
+ * the plugin is running. Changed shops are written to MapDB every flush-interval
+ * seconds and when the database is closed, so a crash loses at most the trades
+ * made since the last flush.
+ *
+ * <p>MapDB transactions are not enabled, as the write-ahead log would double every
+ * write of the transaction log. Instead each flush syncs the file to disk once it has
+ * written every changed shop. Each shop is written with its settings record last, so
+ * a flush cut short by a crash leaves every shop readable, with the records it did not
+ * reach as they were at the previous flush.
  */
 public class Database {
 
     private static final String[] ECONOMY_DATA_KEYS = {
         "GDP", "BALANCE", "DEBT", "LOSS", "INFLATION", "POPULATION" };
 
+    // The number of transactions rolled up before they are deleted in one go.
+    private static final int ROLLUP_BATCH = 5000;
+    // The number of deleted transactions after which the store is compacted.
+    private static final int COMPACT_AFTER = 20000;
+
     private static Database instance;
 
     // The MapDB database.
     private DB db;
-    // The map of item name to shop.
+    // Whether the database has been opened and every cache has been loaded.
+    @Getter
+    private volatile boolean ready;
+    // Whether opening or loading the database failed, which disables the plugin.
+    @Getter
+    private volatile boolean failed;
+    // The database file.
+    private File file;
+    // The transactions deleted since the store was last compacted.
+    private final AtomicInteger deletedSinceCompaction = new AtomicInteger();
+    // Held while flushing, so changes made with atomically() are saved together.
+    private final Object flushLock = new Object();
+    // The task that writes changed shops to the database.
+    private BukkitTask flushTask;
+    // The map of item name to the live shop.
+    protected final Map<String, Shop> shopCache = new ConcurrentHashMap<>();
+    // The names of shops that changed since they were last written.
+    protected final Set<String> dirtyShops = ConcurrentHashMap.newKeySet();
+    // The map of item name to shop settings.
     protected HTreeMap<String, Shop> shops;
-    // The map of times to Transactions
+    // The map of item name to the shop counters that change with every purchase.
+    protected HTreeMap<String, ShopState> shopState;
+    // The map of (item name, player id) to recent buys, recent sells and autosell count.
+    protected BTreeMap<Object[], int[]> shopPlayers;
+    // The map of "name:index" to a chunk of a shop's history.
+    protected HTreeMap<String, HistoryChunk> history;
+    // The dictionary of item names to ids, shared by shops and transactions.
+    @Getter
+    protected ItemDictionary items;
+    // The map of transaction keys to Transactions, sorted by time. See TransactionKey.
+    @Getter
+    protected BTreeMap<Long, Transaction> transactions;
+    // The set of (item id, transaction key) for finding the transactions of an item.
+    protected NavigableSet<Object[]> transactionsByItem;
+    // The set of (player, transaction key) for finding the transactions of a player.
+    protected NavigableSet<Object[]> transactionsByPlayer;
+    // The map of (item id, time period start) to transactions that were rolled up.
+    protected BTreeMap<Object[], PriceCandle> candles;
+    // The dictionary of player UUIDs to ids.
+    @Getter
+    protected PlayerIndex players;
+    // The items each player has enabled autosell for.
+    @Getter
+    protected AutosellPreferences autosell;
+    // The open and paid loans.
     @Getter
-    protected HTreeMap<Long, Transaction> transactions;
-    // The map of times to Loans
+    protected LoanLedger loans;
+    // The economy data of the current and past time periods.
     @Getter
-    protected HTreeMap<Long, Loan> loans;
-    // The map of economy data name to economy data history.
-    protected HTreeMap<String, double[]> economyData;
+    protected EconomyMetrics economy;
     // The map of section name to section.
-    protected HashMap<String, Section> sections;
-    // The map of a pair of shop names to a relation.
-    protected HashMap<Pair<String, String>, Relation> relations;
+    protected HashMap<String, Section> sections = new HashMap<>();
+    // The names of the shops in each section, by lower case section name.
+    private final Map<String, Set<String>> sectionShops = new ConcurrentHashMap<>();
+    // The graph of related shops, replaced on reload while price updates read it.
+    @Getter
+    protected volatile RelationGraph relations;
 
     /**
      * Constructor for the Database class.
+     *
+     * <p>The database is opened and loaded in an async task, see {@link #isReady()}.
      */
     public Database() {
         instance = this;
         AutoTune plugin = AutoTune.getInstance();
-        createDb(plugin.getDataFolder() + "/data.db");
-        this.sections = new HashMap<String, Section>();
-        createMaps();
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            loadShopDefaults();
-            updateChanges();
-            loadSectionData();
-            loadEconomyData();
-            CsvHandler.writePriceData();
-        });
+        String location = plugin.getDataFolder() + "/data.db";
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> load(location));
     }
 
     /**
@@ -78,12 +144,20 @@ public class Database {
     }
 
     /**
-     * Close the database.
+     * Close the database, waiting for startup to finish if it is still running.
      */
-    public void close() {
+    public synchronized void close() {
+        ready = false;
+
+        if (flushTask != null) {
+            flushTask.cancel();
+        }
+
         if (db != null) {
+            flush();
             db.close();
-        } else {
+            db = null;
+        } else if (!failed) {
             Format.getLog().warning("Database is already closed.");
         }
     }
@@ -92,21 +166,81 @@ public class Database {
      * Reloads the database.
      */
     public void reload() {
+        if (!ready) {
+            Format.getLog().warning("Cannot reload the database until it has loaded.");
+            return;
+        }
+
         loadShopDefaults();
         updateChanges();
+        loadRelations();
+        sections.clear();
         loadSectionData();
+        ShopUtil.clearCache();
         loadEconomyData();
         Bukkit.getScheduler().runTaskAsynchronously(AutoTune.getInstance(), () -> {
             CsvHandler.writePriceData();
         });
     }
 
+    /**
+     * Write every shop that changed since the last flush to the database.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            flushDirty();
+        }
+    }
+
+    /**
+     * Apply changes to several shops, without a flush saving only some of them.
+     *
+     * @param changes The changes to apply.
+     */
+    protected void atomically(Runnable changes) {
+        synchronized (flushLock) {
+            changes.run();
+        }
+    }
+
+    private void flushDirty() {
+        long start = System.currentTimeMillis();
+        int count = 0;
+
+        for (String name : dirtyShops) {
+            // Removed first, so a change made while writing marks the shop dirty again.
+            dirtyShops.remove(name);
+            Shop shop = shopCache.get(name);
+
+            if (shop == null) {
+                continue;
+            }
+
+            synchronized (shop) {
+                writeShop(name, shop);
+            }
+            count++;
+        }
+
+        if (economy != null) {
+            economy.save();
+        }
+
+        // Without transactions this syncs the written pages to disk.
+        db.commit();
+
+        if (count > 0) {
+            Format.getLog().finer("Flushed " + count + " shops in "
+                    + (System.currentTimeMillis() - start) + "ms.");
+        }
+    }
+
     /**
      * Update the percentage changes for each shop.
      */
     public void updateChanges() {
         AutoTuneLogger logger = Format.getLog();
-        for (String name : shops.keySet()) {
+        for (String name : shopCache.keySet()) {
             Shop shop = getShop(name, true);
             shop.updateChange();
             putShop(name, shop);
@@ -116,82 +250,438 @@ public class Database {
     }
 
     /**
-     * Update the relations in the shop.
+     * Add the latest price changes to the relations between shops.
      */
     public void updateRelations() {
-        for (String name : shops.keySet()) {
-            for (String name2 : shops.keySet()) {
-                if (name.equals(name2)) {
+        long start = System.currentTimeMillis();
+        relations.update();
+        Format.getLog().fine("Updated " + relations.size() + " relations in "
+                + (System.currentTimeMillis() - start) + "ms.");
+    }
+
+    protected void addTransaction(Transaction transaction) {
+        // The item is given an id here, as TransactionSerializer only looks ids up.
+        int item = items.getId(transaction.getItem());
+        long key = TransactionKey.next();
+        transactions.put(key, transaction);
+        transactionsByItem.add(new Object[] { item, key });
+        transactionsByPlayer.add(new Object[] { transaction.getPlayer(), key });
+    }
+
+    protected void addTransactions(List<Transaction> batch) {
+        TreeMap<Long, Transaction> entries = new TreeMap<>();
+        List<Object[]> byItem = new ArrayList<>(batch.size());
+        List<Object[]> byPlayer = new ArrayList<>(batch.size());
+
+        for (Transaction transaction : batch) {
+            int item = items.getId(transaction.getItem());
+            long key = TransactionKey.next();
+            entries.put(key, transaction);
+            byItem.add(new Object[] { item, key });
+            byPlayer.add(new Object[] { transaction.getPlayer(), key });
+        }
+
+        transactions.putAll(entries);
+        transactionsByItem.addAll(byItem);
+        transactionsByPlayer.addAll(byPlayer);
+    }
+
+    protected NavigableMap<Long, Transaction> getTransactions(long from, long to) {
+        return transactions.subMap(
+                TransactionKey.fromTime(from), true, TransactionKey.fromTime(to), false);
+    }
+
+    protected NavigableMap<Long, Transaction> getTransactions(String item, long from, long to) {
+        int id = items.findId(item);
+        if (id < 0) {
+            return new TreeMap<>();
+        }
+        return collectTransactions(transactionsByItem.subSet(
+                new Object[] { id, TransactionKey.fromTime(from) }, true,
+                new Object[] { id, TransactionKey.fromTime(to) }, false));
+    }
+
+    protected NavigableMap<Long, Transaction> getTransactions(UUID player, long from, long to) {
+        return collectTransactions(transactionsByPlayer.subSet(
+                new Object[] { player, TransactionKey.fromTime(from) }, true,
+                new Object[] { player, TransactionKey.fromTime(to) }, false));
+    }
+
+    private NavigableMap<Long, Transaction> collectTransactions(Set<Object[]> index) {
+        NavigableMap<Long, Transaction> result = new TreeMap<>();
+        for (Object[] entry : index) {
+            Long key = (Long) entry[1];
+            Transaction transaction = transactions.get(key);
+            if (transaction != null) {
+                result.put(key, transaction);
+            }
+        }
+        return result;
+    }
+
+    protected NavigableMap<Object[], PriceCandle> getCandles(String item, long from, long to) {
+        int id = items.findId(item);
+        if (id < 0) {
+            return Collections.emptyNavigableMap();
+        }
+        return candles.subMap(new Object[] { id, from }, true, new Object[] { id, to }, false);
+    }
+
+    /**
+     * Roll the transactions made before a time up into one {@link PriceCandle} per item
+     * and time period, then delete them from the transaction log.
+     *
+     * @param before The time in milliseconds before which transactions are rolled up.
+     * @return The number of transactions rolled up.
+     */
+    public int rollupTransactions(long before) {
+        long period = Math.max(60000L, (long) (Config.get().getTimePeriod() * 60000L));
+        NavigableMap<Long, Transaction> expired = transactions.headMap(
+                TransactionKey.fromTime(before), false);
+        int total = 0;
+
+        while (!expired.isEmpty()) {
+            List<Long> keys = new ArrayList<>();
+            Map<Long, Map<Integer, PriceCandle>> batch = new TreeMap<>();
+
+            for (Map.Entry<Long, Transaction> entry : expired.entrySet()) {
+                if (keys.size() >= ROLLUP_BATCH) {
+                    break;
+                }
+
+                keys.add(entry.getKey());
+                Transaction transaction = entry.getValue();
+                if (transaction.getItem() == null) {
                     continue;
                 }
 
-                Pair<String, String> pair = Tuples.pair(name, name2);
-                Relation relation = new Relation(getShop(name, true), getShop(name2, true));
-                relations.put(pair, relation);
+                long time = TransactionKey.getTime(entry.getKey());
+                Map<Integer, PriceCandle> byItem = batch.computeIfAbsent(
+                        time - time % period, start -> new HashMap<>());
+                int id = items.getId(transaction.getItem());
+                PriceCandle candle = byItem.get(id);
+
+                if (candle == null) {
+                    byItem.put(id, new PriceCandle(transaction));
+                } else {
+                    candle.add(transaction);
+                }
+            }
+
+            for (Map.Entry<Long, Map<Integer, PriceCandle>> entry : batch.entrySet()) {
+                for (Map.Entry<Integer, PriceCandle> candle : entry.getValue().entrySet()) {
+                    Object[] key = new Object[] { candle.getKey(), entry.getKey() };
+                    PriceCandle existing = candles.get(key);
+                    if (existing != null) {
+                        existing.merge(candle.getValue());
+                        candles.put(key, existing);
+                    } else {
+                        candles.put(key, candle.getValue());
+                    }
+                }
+            }
+
+            for (Long key : keys) {
+                Transaction transaction = transactions.remove(key);
+                if (transaction != null && transaction.getItem() != null) {
+                    transactionsByItem.remove(
+                            new Object[] { items.findId(transaction.getItem()), key });
+                    transactionsByPlayer.remove(new Object[] { transaction.getPlayer(), key });
+                }
             }
+
+            total += keys.size();
         }
+
+        deletedSinceCompaction.addAndGet(total);
+        return total;
     }
 
     /**
-     * Update a loan value.
+     * Compact the store if enough transactions were deleted since it was last compacted
+     * and no players are online. Compacting locks the whole store, so purchases would
+     * wait for it. If players are online it is left for a later call.
+     * This should be called off the main thread.
      *
-     * @param key  The key of the loan.
-     * @param loan The loan to update.
+     * @param empty Whether no players were online, checked on the main thread.
+     * @return Whether the store was compacted.
      */
-    public void updateLoan(Long key, Loan loan) {
-        if (loans.containsKey(key)) {
-            loans.put(key, loan);
-        } else {
-            Format.getLog().severe("Tried to update a loan that doesn't exist!");
+    public boolean compactIfNeeded(boolean empty) {
+        int deleted = deletedSinceCompaction.get();
+        if (deleted < COMPACT_AFTER) {
+            return false;
         }
+
+        if (!empty) {
+            Format.getLog().fine("Compaction postponed until no players are online.");
+            return false;
+        }
+
+        long start = System.currentTimeMillis();
+        db.getStore().compact();
+        Format.getLog().config("Compacted the database after " + deleted
+                + " deleted transactions in " + (System.currentTimeMillis() - start) + "ms.");
+        // Transactions rolled up while compacting are kept for the next compaction.
+        deletedSinceCompaction.addAndGet(-deleted);
+        return true;
     }
 
     protected Shop getShop(String s, boolean warn) {
         String item = s.toLowerCase();
+        Shop shop = shopCache.get(item);
 
-        if (shops.get(item) == null) {
+        if (shop == null) {
             if (warn) Format.getLog().severe("Could not find shop for " + item);
             return null;
         }
 
-        return shops.get(item);
+        return shop;
     }
 
     protected void putShop(String key, Shop shop) {
         String name = key.toLowerCase();
-        if (shops.containsKey(name)) {
-            shops.put(name, shop);
+        if (shopCache.containsKey(name)) {
+            shopCache.put(name, shop);
+            dirtyShops.add(name);
         }
     }
 
     protected String[] getShopNames() {
-        return shops.keySet().toArray(new String[0]);
+        return shopCache.keySet().toArray(new String[0]);
     }
 
-    protected int getPurchasesLeft(String item, UUID player, boolean isBuy) {
-        Shop shop = getShop(item, true);
-        int max = isBuy ? shop.getMaxBuys() : shop.getMaxSells();
+    /**
+     * Get the names of the shops in a section.
+     *
+     * @param section The name of the section.
+     * @return A live, read only view of the shop names.
+     */
+    protected Set<String> getSectionShops(String section) {
+        Set<String> names = sectionShops.get(section.toLowerCase());
+        return names != null ? Collections.unmodifiableSet(names) : Set.of();
+    }
+
+    /**
+     * Move a shop from one section to another in the section index.
+     *
+     * @param name     The name of the shop.
+     * @param previous The section it was in, or null if it was in none.
+     * @param section  The section it is in now, or null if it is in none.
+     */
+    private void indexShop(String name, String previous, String section) {
+        if (previous != null && !previous.equalsIgnoreCase(section)) {
+            unindexShop(name, previous);
+        }
+
+        if (section == null) {
+            Format.getLog().warning("Shop " + name + " has no section!");
+            return;
+        }
+
+        sectionShops.computeIfAbsent(section.toLowerCase(),
+                key -> ConcurrentHashMap.newKeySet()).add(name);
+    }
+
+    private void unindexShop(String name, String section) {
+        Set<String> names = sectionShops.get(section.toLowerCase());
+        if (names != null) {
+            names.remove(name);
+        }
+    }
 
-        if (isBuy) {
-            max -= shop.getRecentBuys().getOrDefault(player, 0);
-        } else {
-            max -= shop.getRecentSells().getOrDefault(player, 0);
+    /**
+     * Read a shop and all of its parts from the database.
+     *
+     * @param item The name of the shop.
+     * @return The shop.
+     */
+    private Shop readShop(String item) {
+        Shop shop = shops.get(item);
+
+        if (shop.history == null) {
+            shop.history = loadHistory(item);
+        }
+
+        // Shops saved by older versions have no state and already hold their counters.
+        ShopState state = shopState.get(item);
+        if (state != null) {
+            shop.restoreState(state);
+            for (Map.Entry<Object[], int[]> entry
+                    : shopPlayers.prefixSubMap(new Object[] { item }).entrySet()) {
+                shop.restorePlayerCounts((Integer) entry.getKey()[1], entry.getValue());
+            }
+        }
+
+        return shop;
+    }
+
+    /**
+     * Write the parts of a shop that changed since it was last written.
+     * A purchase only changes the shop state and the counts of one player.
+     *
+     * @param name The name of the shop.
+     * @param shop The shop to write.
+     */
+    private void writeShop(String name, Shop shop) {
+        // The settings record is written last. A shop saved by an older version keeps its
+        // old record, with the history inline, until its chunks and state are written.
+        ShopHistory data = shop.getHistory();
+        for (int i = data.getFirstDirtyChunk(); i < data.getChunkCount(); i++) {
+            history.put(chunkKey(name, i), data.getChunk(i));
+        }
+
+        if (shop.isDirty(Shop.STATE)) {
+            shopState.put(name, shop.getState());
+        }
+
+        BitSet dirtyPlayers = shop.dirtyPlayers;
+        for (int player = dirtyPlayers.nextSetBit(0); player >= 0;
+                player = dirtyPlayers.nextSetBit(player + 1)) {
+            Object[] key = new Object[] { name, player };
+            int[] counts = shop.getPlayerCounts(player);
+            if (counts == null) {
+                shopPlayers.remove(key);
+            } else {
+                shopPlayers.put(key, counts);
+            }
+        }
+
+        if (shop.isDirty(Shop.SETTINGS)) {
+            shops.put(name, shop);
+        }
+
+        shop.markClean();
+    }
+
+    private ShopHistory loadHistory(String name) {
+        List<HistoryChunk> chunks = new ArrayList<>();
+        HistoryChunk chunk = history.get(chunkKey(name, 0));
+
+        while (chunk != null) {
+            chunks.add(chunk);
+            chunk = history.get(chunkKey(name, chunks.size()));
+        }
+
+        if (chunks.isEmpty()) {
+            Format.getLog().severe("Could not find the history for " + name);
+            return new ShopHistory(0);
         }
 
-        return max;
+        return new ShopHistory(chunks);
+    }
+
+    private static String chunkKey(String name, int index) {
+        return name + ":" + index;
+    }
+
+    protected int getPurchasesLeft(String item, UUID player, boolean isBuy) {
+        Shop shop = getShop(item, true);
+        return isBuy ? shop.getBuysLeft(player) : shop.getSellsLeft(player);
     }
 
     protected boolean removeShop(String item) {
         String name = item.toLowerCase();
-        if (shops.containsKey(name)) {
+        if (shopCache.containsKey(name)) {
+            Shop shop = shopCache.remove(name);
+            if (shop != null && shop.getSection() != null) {
+                unindexShop(name, shop.getSection());
+            }
+            dirtyShops.remove(name);
             shops.remove(name);
+            shopState.remove(name);
+            shopPlayers.prefixSubMap(new Object[] { name }).clear();
+            int index = 0;
+            while (history.remove(chunkKey(name, index)) != null) {
+                index++;
+            }
             return true;
         }
         return false;
     }
 
+    /**
+     * Load the database, disabling the plugin if it cannot be loaded. Nothing would
+     * work without it, and commands would only keep saying the shop is loading.
+     *
+     * @param location The path of the database file.
+     */
+    private synchronized void load(String location) {
+        try {
+            start(location);
+        } catch (Exception e) {
+            failed = true;
+            Format.getLog().getLogger().log(Level.SEVERE, "Could not load the database at "
+                    + location + ". Auto-Tune will be disabled.", e);
+
+            if (flushTask != null) {
+                flushTask.cancel();
+            }
+
+            // Closed without a flush, as the caches may only be partly loaded.
+            if (db != null) {
+                try {
+                    db.close();
+                } catch (Exception closeException) {
+                    Format.getLog().warning("Could not close the database: "
+                            + closeException.getMessage());
+                }
+                db = null;
+            }
+
+            AutoTune plugin = AutoTune.getInstance();
+            Bukkit.getScheduler().runTask(plugin,
+                    () -> Bukkit.getPluginManager().disablePlugin(plugin));
+        }
+    }
+
+    /**
+     * Open the database, then validate and load it in phases. Commands and events
+     * check {@link #isReady()} and do nothing until every phase has finished.
+     *
+     * @param location The path of the database file.
+     */
+    private synchronized void start(String location) {
+        AutoTuneLogger logger = Format.getLog();
+        long start = System.currentTimeMillis();
+
+        createDb(location);
+        createMaps();
+        long open = System.currentTimeMillis();
+        logger.fine("Opened the database in " + (open - start) + "ms.");
+
+        migrateTransactions();
+        importAutosell();
+        if (!transactions.isEmpty()) {
+            TransactionKey.resumeAfter(transactions.lastKey());
+        }
+        long validate = System.currentTimeMillis();
+        logger.fine("Validated the database in " + (validate - open) + "ms.");
+
+        loadShops();
+        loadShopDefaults();
+        updateChanges();
+        flush();
+        loadRelations();
+        loadSectionData();
+        ShopUtil.clearCache();
+        loadEconomyData();
+        long warm = System.currentTimeMillis();
+        logger.fine("Loaded the caches in " + (warm - validate) + "ms.");
+
+        long interval = Config.get().getFlushInterval() * 20L;
+        flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(
+                AutoTune.getInstance(), this::flush, interval, interval);
+        ready = true;
+        logger.config("Database ready in " + (warm - start) + "ms (open "
+                + (open - start) + "ms, validate " + (validate - open) + "ms, caches "
+                + (warm - validate) + "ms).");
+        CsvHandler.writePriceData();
+        EconomyReconciler.start();
+    }
+
     private void createDb(String location) {
-        db = DBMaker.fileDB(location)
+        file = new File(location);
+        db = DBMaker.fileDB(file)
                 .checksumHeaderBypass()
                 .fileMmapEnableIfSupported()
                 .fileMmapPreclearDisable()
@@ -200,7 +690,6 @@ public class Database {
                 .allocateIncrement(5 * 1024 * 1024)
                 .closeOnJvmShutdown().make();
         db.getStore().fileLoad();
-        db.getStore().compact();
         Format.getLog().config("Database initialized at " + location);
     }
 
@@ -215,9 +704,24 @@ public class Database {
         }
     }
 
+    private void loadShops() {
+        for (String name : shops.keySet()) {
+            Shop shop = readShop(name);
+            shopCache.put(name, shop);
+            items.getId(name);
+            // Shops saved by older versions are rewritten in the current format.
+            if (shop.isDirty(Shop.SETTINGS)) {
+                dirtyShops.add(name);
+            }
+            indexShop(name, null, shop.getSection());
+        }
+        Format.getLog().fine("Loaded " + shopCache.size() + " shops into the cache.");
+    }
+
     private void loadShopDefaults() {
         ConfigurationSection config = Config.get().getShops();
         AutoTuneLogger logger = Format.getLog();
+        StrengthSchedule.configure(Config.get().getStrengthM(), Config.get().getStrengthZ());
         for (String sectionName : config.getKeys(false)) {
             ConfigurationSection sectionConfig = config.getConfigurationSection(sectionName);
 
@@ -234,58 +738,93 @@ public class Database {
                     continue;
                 }
 
-                if (shops.containsKey(key)) {
+                if (shopCache.containsKey(key)) {
                     Shop shop = getShop(key, true);
+                    String previous = shop.getSection();
                     shop.loadConfiguration(section, sectionName);
-                    shops.put(key, shop);
+                    indexShop(key, previous, shop.getSection());
+                    putShop(key, shop);
                     logger.finer("Shop " + key + " loaded.");
                     continue;
                 }
 
-                shops.put(key, new Shop(section, sectionName, isEnchantment));
-                logger.fine("New shop " + key + " in section " + shops.get(key).getSection());
+                Shop shop = new Shop(section, sectionName, isEnchantment);
+                items.getId(key);
+                shopCache.put(key, shop);
+                indexShop(key, null, shop.getSection());
+                dirtyShops.add(key);
+                logger.fine("New shop " + key + " in section " + shop.getSection());
             }
         }
     }
 
-    private void loadEconomyData() {
-        if (economyData.isEmpty()) {
-            for (String key : ECONOMY_DATA_KEYS) {
-                economyData.put(key, new double[1]);
-            }
-        }
+    private void loadRelations() {
+        relations = RelationGraph.build(Config.get().getShops(), shopCache.keySet(),
+                Config.get().isDetectRelations());
+        Format.getLog().fine("Loaded " + relations.size() + " relations between shops.");
+    }
 
+    private void loadEconomyData() {
         EconomyDataUtil.updateEconomyData("INFLATION", calculateInflation());
-        EconomyDataUtil.updateEconomyData("POPULATION", calculatePopulation());
-        EconomyDataUtil.updateEconomyData("BALANCE", calculateBalance());
     }
 
     private double calculateInflation() {
         double inflation = 0;
-        for (Shop shop : shops.values()) {
+        for (Shop shop : shopCache.values()) {
             inflation += shop.getChange();
         }
-        inflation /= shops.size();
+        inflation /= shopCache.size();
         return inflation;
     }
 
-    private double calculatePopulation() {
-        double population = 0;
-        for (OfflinePlayer player : AutoTune.getInstance().getServer().getOfflinePlayers()) {
-            if (player == null) {
-                continue;
-            }
-            population++;
+    /**
+     * Move transactions from the hash map used by older versions, which was keyed by
+     * the time in milliseconds, into the sorted transaction log.
+     */
+    private void migrateTransactions() {
+        if (!db.exists("transactions")) {
+            return;
         }
-        return population;
+
+        HTreeMap<Long, Transaction> legacy = db.hashMap("transactions")
+                .keySerializer(new SerializerCompressionWrapper<Long>(Serializer.LONG))
+                .valueSerializer(new TransactionSerializer(items))
+                .open();
+
+        if (legacy.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<Long, Transaction> entry : legacy.entrySet()) {
+            long key = TransactionKey.fromTime(entry.getKey());
+            Transaction transaction = entry.getValue();
+            int item = items.getId(transaction.getItem());
+            transactions.put(key, transaction);
+            transactionsByItem.add(new Object[] { item, key });
+            transactionsByPlayer.add(new Object[] { transaction.getPlayer(), key });
+        }
+
+        Format.getLog().info("Migrated " + legacy.size() + " transactions to the new log.");
+        legacy.clear();
     }
 
-    private double calculateBalance() {
-        double balance = 0;
-        for (OfflinePlayer player : AutoTune.getInstance().getServer().getOfflinePlayers()) {
-            balance += EconomyUtil.getEconomy().getBalance(player);
+    /**
+     * Import the autosell settings saved in playerdata.yml by older versions.
+     * This only runs once, later changes to playerdata.yml are ignored.
+     */
+    private void importAutosell() {
+        Atomic.Boolean imported = db.atomicBoolean("autosellImported").createOrOpen();
+        if (imported.get()) {
+            return;
+        }
+
+        ConfigurationSection section = Config.get().getAutosell();
+        if (section != null) {
+            int count = autosell.importSection(section);
+            Format.getLog().info("Imported " + count + " autosell settings from playerdata.yml.");
         }
-        return balance;
+
+        imported.set(true);
     }
 
     private void createMaps() {
@@ -295,22 +834,64 @@ public class Database {
                 .valueSerializer(new ShopSerializer())
                 .createOrOpen();
         logger.fine("Loaded shops map.");
-        this.transactions = db.hashMap("transactions")
-                .keySerializer(new SerializerCompressionWrapper<Long>(Serializer.LONG))
-                .valueSerializer(new TransactionSerializer())
+        this.shopState = db.hashMap("shopState")
+                .keySerializer(new SerializerCompressionWrapper<String>(Serializer.STRING))
+                .valueSerializer(new ShopStateSerializer())
+                .createOrOpen();
+        logger.fine("Loaded shop state map.");
+        this.players = new PlayerIndex(db.hashMap("playerIds")
+                .keySerializer(Serializer.UUID)
+                .valueSerializer(Serializer.INTEGER)
+                .createOrOpen());
+        logger.fine("Loaded player ids map.");
+        this.shopPlayers = db.treeMap("playerCounts")
+                .keySerializer(new SerializerArrayTuple(Serializer.STRING, Serializer.INTEGER))
+                .valueSerializer(Serializer.INT_ARRAY)
+                .createOrOpen();
+        logger.fine("Loaded shop players map.");
+        this.history = db.hashMap("history")
+                .keySerializer(new SerializerCompressionWrapper<String>(Serializer.STRING))
+                .valueSerializer(new HistoryChunkSerializer())
+                .createOrOpen();
+        logger.fine("Loaded history map.");
+        this.items = new ItemDictionary(db.hashMap("itemIds")
+                .keySerializer(new SerializerCompressionWrapper<String>(Serializer.STRING))
+                .valueSerializer(Serializer.INTEGER)
+                .createOrOpen());
+        logger.fine("Loaded item ids map.");
+        this.autosell = new AutosellPreferences(db.hashMap("autosell")
+                .keySerializer(Serializer.UUID)
+                .valueSerializer(Serializer.LONG_ARRAY)
+                .createOrOpen(), items);
+        logger.fine("Loaded autosell map.");
+        this.transactions = db.treeMap("transactionLog")
+                .keySerializer(Serializer.LONG_DELTA)
+                .valueSerializer(new TransactionSerializer(items))
+                .createOrOpen();
+        this.transactionsByItem = db.treeSet("transactionsByItem")
+                .serializer(new SerializerArrayTuple(Serializer.INTEGER, Serializer.LONG))
+                .createOrOpen();
+        this.transactionsByPlayer = db.treeSet("transactionsByPlayer")
+                .serializer(new SerializerArrayTuple(Serializer.UUID, Serializer.LONG))
+                .createOrOpen();
+        this.candles = db.treeMap("candles")
+                .keySerializer(new SerializerArrayTuple(Serializer.INTEGER, Serializer.LONG))
+                .valueSerializer(new PriceCandleSerializer())
                 .createOrOpen();
         logger.fine("Loaded transactions map.");
-        this.loans = db.hashMap("loans")
+        this.loans = new LoanLedger(db.hashMap("loans")
                 .keySerializer(new SerializerCompressionWrapper<Long>(Serializer.LONG))
                 .valueSerializer(new LoanSerializer())
-                .createOrOpen();
+                .createOrOpen(), db.hashMap("paidLoans")
+                .keySerializer(new SerializerCompressionWrapper<Long>(Serializer.LONG))
+                .valueSerializer(new LoanSerializer())
+                .createOrOpen());
         logger.fine("Loaded loans map.");
-        this.economyData = db.hashMap("economyData")
+        this.economy = new EconomyMetrics(db.hashMap("economyData")
                 .keySerializer(new SerializerCompressionWrapper<String>(Serializer.STRING))
                 .valueSerializer(Serializer.DOUBLE_ARRAY)
-                .createOrOpen();
+                .createOrOpen(), ECONOMY_DATA_KEYS, Config.get().getEconomyHistory());
         logger.fine("Loaded economy data map.");
-        this.relations = new HashMap<>();
     }
 
 }
@@ -4,6 +4,8 @@ import lombok.experimental.UtilityClass;
 
 /**
  * Utility class for the servers economy.
+ *
+ * <p>Values are of the current time period, see {@link EconomyMetrics}.
  */
 @UtilityClass
 public class EconomyDataUtil {
@@ -15,9 +17,7 @@ public class EconomyDataUtil {
      * @param value The new value of the economy data setting.
      */
     public void updateEconomyData(String key, double value) {
-        double[] data = Database.get().economyData.get(key);
-        data[data.length - 1] = value;
-        Database.get().economyData.put(key, data);
+        Database.get().getEconomy().set(key, value);
     }
 
     /**
@@ -27,39 +27,41 @@ public class EconomyDataUtil {
      * @param value The value to increase the economy data setting by.
      */
     public void increaseEconomyData(String key, double value) {
-        double[] data = Database.get().economyData.get(key);
-        data[data.length - 1] += value;
-        Database.get().economyData.put(key, data);
+        Database.get().getEconomy().add(key, value);
+    }
+
+    /**
+     * Get the history of an economy data setting.
+     *
+     * @param key The key of the economy data setting.
+     * @return The value of each time period, oldest first, ending with the current one.
+     */
+    public double[] getHistory(String key) {
+        return Database.get().getEconomy().getHistory(key);
     }
 
     public double getGdp() {
-        double[] data = Database.get().economyData.get("GDP");
-        return data[data.length - 1];
+        return Database.get().getEconomy().get("GDP");
     }
 
     public double getBalance() {
-        double[] data = Database.get().economyData.get("BALANCE");
-        return data[data.length - 1];
+        return Database.get().getEconomy().get("BALANCE");
     }
 
     public int getPopulation() {
-        double[] data = Database.get().economyData.get("POPULATION");
-        return (int) data[data.length - 1];
+        return (int) Database.get().getEconomy().get("POPULATION");
     }
 
     public double getLoss() {
-        double[] data = Database.get().economyData.get("LOSS");
-        return data[data.length - 1];
+        return Database.get().getEconomy().get("LOSS");
     }
 
     public double getDebt() {
-        double[] data = Database.get().economyData.get("DEBT");
-        return data[data.length - 1];
+        return Database.get().getEconomy().get("DEBT");
     }
 
     public double getInflation() {
-        double[] data = Database.get().economyData.get("INFLATION");
-        return data[data.length - 1];
+        return Database.get().getEconomy().get("INFLATION");
     }
 
 }
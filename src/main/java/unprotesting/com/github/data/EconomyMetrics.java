@@ -0,0 +1,197 @@
+package unprotesting.com.github.data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.mapdb.HTreeMap;
+
+/**
+ * The economy data of the server, as a history of time periods.
+ *
+ * <p>The value of the current time period is kept in a {@link DoubleAdder} per key, so
+ * trades on any thread only add to it without a database read or write. The values are
+ * saved with every database flush, and at the end of each time period a new one is
+ * started. Flows like GDP start again from zero, levels like the total balance carry on.
+ *
+ * <p>Adding and reading share a read lock, so adds from many threads do not wait for
+ * each other. Setting a value and ending a time period reset the adders, so they take
+ * the write lock, and no add is lost or value read halfway through.
+ */
+public class EconomyMetrics {
+
+    // The keys that are totals of the time period, rather than levels.
+    private static final Set<String> FLOWS = Set.of("GDP", "LOSS");
+
+    // The saved history of each key, where the last value is the current time period.
+    private final HTreeMap<String, double[]> saved;
+    // The value of each key in the current time period. Not changed after construction.
+    private final Map<String, DoubleAdder> current;
+    // The most time periods kept in each history.
+    private final int limit;
+    // Held to read when adding or reading values, and to write when resetting them.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // The number of time periods ended since the server started.
+    private volatile int period;
+
+    /**
+     * Constructor for the economy metrics.
+     *
+     * @param saved The saved map of key to history.
+     * @param keys  The economy data keys.
+     * @param limit The most time periods kept in each history.
+     */
+    protected EconomyMetrics(HTreeMap<String, double[]> saved, String[] keys, int limit) {
+        this.saved = saved;
+        this.current = new HashMap<>();
+        this.limit = Math.max(1, limit);
+
+        for (String key : keys) {
+            double[] data = saved.get(key);
+
+            if (data == null || data.length == 0) {
+                data = new double[1];
+                saved.put(key, data);
+            }
+
+            DoubleAdder adder = new DoubleAdder();
+            adder.add(data[data.length - 1]);
+            current.put(key, adder);
+        }
+    }
+
+    /**
+     * Add to the value of a key in the current time period.
+     *
+     * @param key   The economy data key.
+     * @param value The value to add.
+     */
+    public void add(String key, double value) {
+        DoubleAdder adder = adder(key);
+        lock.readLock().lock();
+        try {
+            adder.add(value);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Set the value of a key in the current time period.
+     *
+     * @param key   The economy data key.
+     * @param value The new value.
+     */
+    public void set(String key, double value) {
+        DoubleAdder adder = adder(key);
+        lock.writeLock().lock();
+        try {
+            adder.reset();
+            adder.add(value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the value of a key in the current time period.
+     *
+     * @param key The economy data key.
+     * @return The value.
+     */
+    public double get(String key) {
+        DoubleAdder adder = adder(key);
+        lock.readLock().lock();
+        try {
+            return adder.sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of time periods ended since the server started.
+     *
+     * @return The number of rollovers.
+     */
+    public int getPeriod() {
+        return period;
+    }
+
+    /**
+     * Get the history of a key.
+     *
+     * @param key The economy data key.
+     * @return The value of each time period, oldest first, ending with the current one.
+     */
+    public synchronized double[] getHistory(String key) {
+        double[] data = saved.get(key).clone();
+        data[data.length - 1] = get(key);
+        return data;
+    }
+
+    /**
+     * Save the values of the current time period.
+     */
+    public synchronized void save() {
+        for (Map.Entry<String, DoubleAdder> entry : current.entrySet()) {
+            double[] data = saved.get(entry.getKey());
+            double value = get(entry.getKey());
+
+            if (data[data.length - 1] != value) {
+                data[data.length - 1] = value;
+                saved.put(entry.getKey(), data);
+            }
+        }
+    }
+
+    /**
+     * End the current time period and start a new one, dropping the oldest
+     * time periods past the limit.
+     */
+    public synchronized void rollover() {
+        Map<String, Double> ended = new HashMap<>();
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<String, DoubleAdder> entry : current.entrySet()) {
+                // Anything added after this is counted in the new time period.
+                DoubleAdder adder = entry.getValue();
+                boolean flow = FLOWS.contains(entry.getKey());
+                ended.put(entry.getKey(), flow ? adder.sumThenReset() : adder.sum());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        for (Map.Entry<String, Double> entry : ended.entrySet()) {
+            String key = entry.getKey();
+            double value = entry.getValue();
+            double[] data = saved.get(key);
+            double[] next = Arrays.copyOf(data, data.length + 1);
+            next[data.length - 1] = value;
+            next[data.length] = FLOWS.contains(key) ? 0 : value;
+
+            if (next.length > limit) {
+                next = Arrays.copyOfRange(next, next.length - limit, next.length);
+            }
+
+            saved.put(key, next);
+        }
+
+        period++;
+    }
+
+    private DoubleAdder adder(String key) {
+        DoubleAdder adder = current.get(key);
+
+        if (adder == null) {
+            throw new IllegalArgumentException("Unknown economy data key: " + key);
+        }
+
+        return adder;
+    }
+
+}
@@ -0,0 +1,128 @@
+package unprotesting.com.github.data;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.scheduler.BukkitTask;
+import unprotesting.com.github.AutoTune;
+import unprotesting.com.github.util.EconomyUtil;
+import unprotesting.com.github.util.Format;
+
+/**
+ * The task that recounts the population and total balance of the economy.
+ *
+ * <p>Both are kept up to date as players join and as the plugin deposits and withdraws
+ * money, so they only drift when other plugins change balances. The recount reads a
+ * few balances each tick and reports how far the running totals had drifted.
+ *
+ * <p>Money the plugin moves for a player that is not counted yet is both in the running
+ * total and in the balance read later, so it is left out of the drift. Money moved by
+ * an async task for the player being read at that moment may still be counted twice
+ * or not at all, until the next recount.
+ */
+public class EconomyReconciler implements Runnable {
+
+    // The number of balances read each tick, kept small as economy plugins may read
+    // balances from their own database on the main thread.
+    private static final int SLICE = 20;
+
+    // The recount in progress, if any.
+    private static volatile EconomyReconciler running;
+
+    // The players to count.
+    private final OfflinePlayer[] players;
+    // The time the recount started.
+    private final long start;
+    // The running total balance when the recount started.
+    private final double startBalance;
+    // The running population when the recount started.
+    private final int startPopulation;
+    // The players that are not counted yet.
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    // The money moved for players that were not counted yet.
+    private final DoubleAdder pendingChanges = new DoubleAdder();
+    // The task running the recount.
+    private BukkitTask task;
+    // The index of the next player to count.
+    private int next;
+    // The balance of the players counted so far.
+    private double balance;
+    // The number of players counted so far.
+    private int population;
+
+    private EconomyReconciler() {
+        this.players = Bukkit.getOfflinePlayers();
+        this.start = System.currentTimeMillis();
+        this.startBalance = EconomyDataUtil.getBalance();
+        this.startPopulation = EconomyDataUtil.getPopulation();
+        for (OfflinePlayer player : players) {
+            if (isCounted(player)) {
+                pending.add(player.getUniqueId());
+            }
+        }
+    }
+
+    /**
+     * Start a recount on the main thread, unless one is already running.
+     */
+    public static void start() {
+        Bukkit.getScheduler().runTask(AutoTune.getInstance(), () -> {
+            if (running != null || !ShopUtil.isReady()) {
+                return;
+            }
+
+            running = new EconomyReconciler();
+            running.task = Bukkit.getScheduler().runTaskTimer(
+                    AutoTune.getInstance(), running, 1L, 1L);
+        });
+    }
+
+    /**
+     * Note money the plugin moved for a player, after it was added to the running total.
+     *
+     * @param player The player.
+     * @param amount The amount deposited, or negative if withdrawn.
+     */
+    public static void track(OfflinePlayer player, double amount) {
+        EconomyReconciler recount = running;
+        if (recount != null && recount.pending.contains(player.getUniqueId())) {
+            recount.pendingChanges.add(amount);
+        }
+    }
+
+    private static boolean isCounted(OfflinePlayer player) {
+        return player != null && player.getName() != null;
+    }
+
+    @Override
+    public void run() {
+        int end = Math.min(next + SLICE, players.length);
+        for (; next < end; next++) {
+            OfflinePlayer player = players[next];
+            if (isCounted(player)) {
+                balance += EconomyUtil.getEconomy().getBalance(player);
+                population++;
+                pending.remove(player.getUniqueId());
+            }
+        }
+
+        if (next < players.length) {
+            return;
+        }
+
+        task.cancel();
+        running = null;
+        // Only the drift is corrected, as the running totals kept changing during the recount.
+        double balanceDrift = balance - startBalance - pendingChanges.sum();
+        int populationDrift = population - startPopulation;
+        EconomyDataUtil.increaseEconomyData("BALANCE", balanceDrift);
+        EconomyDataUtil.increaseEconomyData("POPULATION", populationDrift);
+        Format.getLog().config("Recounted the economy of " + population + " players in "
+                + (System.currentTimeMillis() - start) + "ms. Balance drift: "
+                + Format.currency(balanceDrift) + ", population drift: " + populationDrift + ".");
+    }
+
+}
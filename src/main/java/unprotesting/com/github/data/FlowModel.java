@@ -0,0 +1,57 @@
+package unprotesting.com.github.data;
+
+/**
+ * The pricing model that moves the price by an exponentially weighted moving average of
+ * the order flow, (buys - sells) / (buys + sells), of each time period.
+ *
+ * <p>Time periods are weighted by alpha * (1 - alpha)^n, where n is how many periods ago
+ * they were. Periods whose weight would be under 0.1% are not read.
+ */
+public class FlowModel implements PricingModel {
+
+    // The weight of the latest time period, between 0 and 1.
+    private final double alpha;
+    // The number of time periods read.
+    private final int span;
+
+    /**
+     * Constructor for the flow model.
+     *
+     * @param alpha The weight of the latest time period, between 0 and 1.
+     */
+    public FlowModel(double alpha) {
+        this.alpha = Math.min(1, Math.max(0.001, alpha));
+        this.span = this.alpha >= 1 ? 1
+                : (int) Math.ceil(Math.log(0.001) / Math.log(1 - this.alpha));
+    }
+
+    @Override
+    public String getName() {
+        return "ewma";
+    }
+
+    @Override
+    public double signal(Shop shop) {
+        ShopHistory history = shop.getHistory();
+        int size = history.getSize();
+        int periods = Math.min(span, size);
+        double flow = 0;
+        double total = 0;
+        double weight = alpha;
+
+        for (int i = size - 1; i >= size - periods; i--) {
+            int buys = history.getBuys(i);
+            int sells = history.getSells(i);
+
+            if (buys + sells > 0) {
+                flow += weight * (buys - sells) / (buys + sells);
+            }
+
+            total += weight;
+            weight *= 1 - alpha;
+        }
+
+        return flow / total;
+    }
+
+}
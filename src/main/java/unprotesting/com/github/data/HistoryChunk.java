@@ -0,0 +1,39 @@
+package unprotesting.com.github.data;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * A fixed-size block of consecutive time periods in a shop's history.
+ */
+@AllArgsConstructor
+public class HistoryChunk {
+
+    // The number of time periods stored in a single chunk.
+    public static final int CAPACITY = 128;
+
+    // The buys for each time period in the chunk.
+    protected final int[] buys;
+    // The sells for each time period in the chunk.
+    protected final int[] sells;
+    // The prices for each time period in the chunk.
+    protected final double[] prices;
+    // The number of time periods used in the chunk.
+    protected int length;
+
+    /**
+     * Constructor for an empty history chunk.
+     */
+    protected HistoryChunk() {
+        this(new int[CAPACITY], new int[CAPACITY], new double[CAPACITY], 0);
+    }
+
+    /**
+     * Whether every time period in the chunk has been used.
+     *
+     * @return Whether the chunk is full.
+     */
+    protected boolean isFull() {
+        return length == CAPACITY;
+    }
+
+}
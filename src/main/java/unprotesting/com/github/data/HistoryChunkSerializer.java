@@ -0,0 +1,37 @@
+package unprotesting.com.github.data;
+
+import java.io.IOException;
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
+/**
+ * Serializer for the HistoryChunk class.
+ */
+public class HistoryChunkSerializer implements Serializer<HistoryChunk> {
+
+    @Override
+    public void serialize(DataOutput2 out, HistoryChunk value) throws IOException {
+        out.writeInt(value.length);
+
+        for (int i = 0; i < value.length; i++) {
+            out.writeInt(value.buys[i]);
+            out.writeInt(value.sells[i]);
+            out.writeDouble(value.prices[i]);
+        }
+    }
+
+    @Override
+    public HistoryChunk deserialize(DataInput2 input, int available) throws IOException {
+        HistoryChunk chunk = new HistoryChunk();
+        chunk.length = input.readInt();
+
+        for (int i = 0; i < chunk.length; i++) {
+            chunk.buys[i] = input.readInt();
+            chunk.sells[i] = input.readInt();
+            chunk.prices[i] = input.readDouble();
+        }
+
+        return chunk;
+    }
+}
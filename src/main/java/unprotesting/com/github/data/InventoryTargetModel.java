@@ -0,0 +1,37 @@
+package unprotesting.com.github.data;
+
+/**
+ * The pricing model that treats every item sold to the shop and not bought back as stock,
+ * and moves the price to keep the stock near a target.
+ *
+ * <p>The price falls while the stock is above the target and rises while it is below,
+ * by up to the volatility of the shop when the stock is off by the whole target or more.
+ */
+public class InventoryTargetModel implements PricingModel {
+
+    // The stock the shop aims to hold.
+    private final double target;
+
+    /**
+     * Constructor for the inventory target model.
+     *
+     * @param target The stock the shop aims to hold.
+     */
+    public InventoryTargetModel(double target) {
+        this.target = Math.max(0, target);
+    }
+
+    @Override
+    public String getName() {
+        return "inventory-target";
+    }
+
+    @Override
+    public double signal(Shop shop) {
+        double stock = shop.getTotalSells() + shop.getSellCount()
+                - shop.getTotalBuys() - shop.getBuyCount();
+        double gap = (target - stock) / Math.max(1, target);
+        return Math.max(-1, Math.min(1, gap));
+    }
+
+}
@@ -0,0 +1,99 @@
+package unprotesting.com.github.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.mapdb.HTreeMap;
+
+/**
+ * The dictionary of item names to small integer ids.
+ *
+ * <p>Every shop gets an id when it is loaded, and items that are not in a shop get
+ * one when they are first written to the transaction log. Ids are never reused, so
+ * old records still resolve to the right name after a shop is removed.
+ */
+public class ItemDictionary {
+
+    // The map of item name to id, saved in the database.
+    private final HTreeMap<String, Integer> saved;
+    // The map of item name to id.
+    private final Map<String, Integer> ids;
+    // The item names, indexed by id.
+    private final List<String> names;
+
+    /**
+     * Constructor for the item dictionary.
+     *
+     * @param saved The saved map of item name to id.
+     */
+    protected ItemDictionary(HTreeMap<String, Integer> saved) {
+        this.saved = saved;
+        this.ids = new HashMap<>();
+        this.names = new ArrayList<>();
+
+        for (Map.Entry<String, Integer> entry : saved.entrySet()) {
+            int id = entry.getValue();
+            while (names.size() <= id) {
+                names.add(null);
+            }
+            names.set(id, entry.getKey());
+            ids.put(entry.getKey(), id);
+        }
+    }
+
+    /**
+     * Get the id of an item, giving it a new id if it does not have one.
+     *
+     * @param name The name of the item.
+     * @return The id.
+     */
+    public synchronized int getId(String name) {
+        String key = name.toLowerCase();
+        Integer id = ids.get(key);
+
+        if (id != null) {
+            return id;
+        }
+
+        id = names.size();
+        names.add(key);
+        ids.put(key, id);
+        saved.put(key, id);
+        return id;
+    }
+
+    /**
+     * Get the id of an item without giving it one.
+     *
+     * @param name The name of the item.
+     * @return The id, or -1 if the item does not have one.
+     */
+    public synchronized int findId(String name) {
+        Integer id = ids.get(name.toLowerCase());
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Get the name of an item from its id.
+     *
+     * @param id The id.
+     * @return The name of the item, or null if the id is unknown.
+     */
+    public synchronized String getName(int id) {
+        if (id < 0 || id >= names.size()) {
+            return null;
+        }
+        return names.get(id);
+    }
+
+    /**
+     * Get the number of ids handed out.
+     *
+     * @return The number of ids.
+     */
+    public synchronized int size() {
+        return names.size();
+    }
+
+}
@@ -38,7 +38,7 @@ public class Loan implements Serializable {
             return false;
         }
 
-        EconomyUtil.getEconomy().withdrawPlayer(offPlayer, value);
+        EconomyUtil.withdraw(offPlayer, value);
         paid = true;
         EconomyDataUtil.increaseEconomyData("LOSS", value - base);
         return true;
@@ -0,0 +1,181 @@
+package unprotesting.com.github.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import org.mapdb.HTreeMap;
+import unprotesting.com.github.util.Format;
+
+/**
+ * The book of every loan, split into open loans and an archive of paid loans.
+ *
+ * <p>Open loans are indexed by player and each player's outstanding total is kept
+ * up to date as loans change, so looking up a player never scans other loans and
+ * interest is only charged on loans that are still open.
+ */
+public class LoanLedger {
+
+    // The open loans, keyed by the time they were taken.
+    private final HTreeMap<Long, Loan> open;
+    // The paid loans, keyed by the time they were taken.
+    private final HTreeMap<Long, Loan> paid;
+    // The keys of the open loans of each player.
+    private final Map<UUID, Set<Long>> byPlayer;
+    // The total value of the open loans of each player.
+    private final Map<UUID, Double> totals;
+
+    /**
+     * Constructor for the loan ledger. Paid loans left in the open map by older
+     * versions are moved to the archive.
+     *
+     * @param open The saved map of open loans.
+     * @param paid The saved map of paid loans.
+     */
+    protected LoanLedger(HTreeMap<Long, Loan> open, HTreeMap<Long, Loan> paid) {
+        this.open = open;
+        this.paid = paid;
+        this.byPlayer = new HashMap<>();
+        this.totals = new HashMap<>();
+        int archived = 0;
+
+        for (Map.Entry<Long, Loan> entry : new HashMap<>(open).entrySet()) {
+            Loan loan = entry.getValue();
+
+            if (loan.isPaid()) {
+                paid.put(entry.getKey(), loan);
+                open.remove(entry.getKey());
+                archived++;
+                continue;
+            }
+
+            index(entry.getKey(), loan);
+        }
+
+        if (archived > 0) {
+            Format.getLog().info("Archived " + archived + " paid loans.");
+        }
+    }
+
+    /**
+     * Add a new loan.
+     *
+     * @param loan The loan.
+     * @return The key of the loan.
+     */
+    public synchronized long add(Loan loan) {
+        long key = System.currentTimeMillis();
+        while (open.containsKey(key) || paid.containsKey(key)) {
+            key++;
+        }
+
+        open.put(key, loan);
+        index(key, loan);
+        return key;
+    }
+
+    /**
+     * Save a change to an open loan, moving it to the archive if it was paid.
+     *
+     * @param key  The key of the loan.
+     * @param loan The changed loan.
+     */
+    public synchronized void update(long key, Loan loan) {
+        Loan previous = open.get(key);
+
+        if (previous == null) {
+            Format.getLog().severe("Tried to update a loan that doesn't exist!");
+            return;
+        }
+
+        UUID player = loan.getPlayer();
+        totals.merge(player, -previous.getValue(), Double::sum);
+
+        if (loan.isPaid()) {
+            open.remove(key);
+            paid.put(key, loan);
+            Set<Long> keys = byPlayer.get(player);
+            keys.remove(key);
+
+            if (keys.isEmpty()) {
+                byPlayer.remove(player);
+                totals.remove(player);
+            }
+
+            return;
+        }
+
+        open.put(key, loan);
+        totals.merge(player, loan.getValue(), Double::sum);
+    }
+
+    /**
+     * Get the open loans of a player.
+     *
+     * @param player The UUID of the player.
+     * @return The map of key to loan, oldest first.
+     */
+    public synchronized TreeMap<Long, Loan> getOpenLoans(UUID player) {
+        TreeMap<Long, Loan> loans = new TreeMap<>();
+        Set<Long> keys = byPlayer.get(player);
+
+        if (keys == null) {
+            return loans;
+        }
+
+        for (Long key : keys) {
+            loans.put(key, open.get(key));
+        }
+
+        return loans;
+    }
+
+    /**
+     * Get the total value of the open loans of a player.
+     *
+     * @param player The UUID of the player.
+     * @return The total value.
+     */
+    public synchronized double getTotal(UUID player) {
+        return totals.getOrDefault(player, 0.0);
+    }
+
+    /**
+     * Charge interest on every open loan, paying back the loans of players who
+     * could not afford the next charge.
+     *
+     * <p>Only the keys are copied while holding the ledger. Balances are read and
+     * charged after it is released, like paying back a loan with /loan, so commands
+     * never wait for the economy plugin.
+     */
+    public void accrueInterest() {
+        List<Long> keys = new ArrayList<>();
+        synchronized (this) {
+            for (Set<Long> playerKeys : byPlayer.values()) {
+                keys.addAll(playerKeys);
+            }
+        }
+
+        for (long key : keys) {
+            Loan loan = open.get(key);
+
+            // Paid back since the keys were copied.
+            if (loan == null) {
+                continue;
+            }
+
+            loan.update();
+            update(key, loan);
+        }
+    }
+
+    private void index(long key, Loan loan) {
+        byPlayer.computeIfAbsent(loan.getPlayer(), player -> new HashSet<>()).add(key);
+        totals.merge(loan.getPlayer(), loan.getValue(), Double::sum);
+    }
+
+}
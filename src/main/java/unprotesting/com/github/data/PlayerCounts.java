@@ -0,0 +1,162 @@
+package unprotesting.com.github.data;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A count for each player, keyed by their id in the {@link PlayerIndex}.
+ *
+ * <p>The ids and counts are kept in two int arrays with open addressing, so adding to
+ * a count does not box an Integer or create a map entry. Counts are only ever added to
+ * or cleared together, so entries are never removed one at a time.
+ */
+public class PlayerCounts implements Serializable {
+
+    private static final long serialVersionUID = 2915716204582069637L;
+
+    // The id stored in a free slot.
+    private static final int FREE = -1;
+
+    // The player id in each slot, or FREE.
+    private int[] keys;
+    // The count in each slot.
+    private int[] values;
+    // The number of players with a count.
+    private int size;
+
+    /**
+     * Constructor for empty player counts.
+     */
+    public PlayerCounts() {
+        this.keys = new int[8];
+        this.values = new int[8];
+        Arrays.fill(keys, FREE);
+    }
+
+    /**
+     * Get the count of a player.
+     *
+     * @param player The player id.
+     * @return The count, or 0 if the player has none.
+     */
+    public int get(int player) {
+        if (player < 0) {
+            return 0;
+        }
+
+        int slot = find(player);
+        return keys[slot] == FREE ? 0 : values[slot];
+    }
+
+    /**
+     * Add to the count of a player.
+     *
+     * @param player The player id.
+     * @param count  The amount to add.
+     * @return The new count.
+     */
+    public int add(int player, int count) {
+        int slot = find(player);
+
+        if (keys[slot] == FREE) {
+            keys[slot] = player;
+            values[slot] = count;
+            grow();
+            return count;
+        }
+
+        values[slot] += count;
+        return values[slot];
+    }
+
+    /**
+     * Set the count of a player.
+     *
+     * @param player The player id.
+     * @param count  The count.
+     */
+    public void put(int player, int count) {
+        int slot = find(player);
+
+        if (keys[slot] == FREE) {
+            keys[slot] = player;
+            values[slot] = count;
+            grow();
+            return;
+        }
+
+        values[slot] = count;
+    }
+
+    /**
+     * Get the ids of the players with a count.
+     *
+     * @return The player ids, in no particular order.
+     */
+    public int[] players() {
+        int[] players = new int[size];
+        int i = 0;
+
+        for (int key : keys) {
+            if (key != FREE) {
+                players[i++] = key;
+            }
+        }
+
+        return players;
+    }
+
+    /**
+     * Remove every count.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, FREE);
+            size = 0;
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int find(int player) {
+        int mask = keys.length - 1;
+        int hash = player * 0x9E3779B9;
+        int slot = (hash ^ hash >>> 16) & mask;
+
+        while (keys[slot] != FREE && keys[slot] != player) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void grow() {
+        size++;
+
+        // Kept at most three quarters full so probes stay short.
+        if (size * 4 <= keys.length * 3) {
+            return;
+        }
+
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, FREE);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package unprotesting.com.github.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.mapdb.HTreeMap;
+
+/**
+ * The index of player UUIDs to small integer ids.
+ *
+ * <p>Per player counters are kept in arrays indexed by these ids, see {@link PlayerCounts}.
+ * A player gets an id the first time one is needed and ids are never reused. Looking up
+ * a known player does not take a lock, so shops can look up ids while locked.
+ */
+public class PlayerIndex {
+
+    // The map of player to id, saved in the database.
+    private final HTreeMap<UUID, Integer> saved;
+    // The map of player to id.
+    private final Map<UUID, Integer> ids;
+    // The players, indexed by id.
+    private final List<UUID> players;
+
+    /**
+     * Constructor for the player index.
+     *
+     * @param saved The saved map of player to id.
+     */
+    protected PlayerIndex(HTreeMap<UUID, Integer> saved) {
+        this.saved = saved;
+        this.ids = new ConcurrentHashMap<>();
+        this.players = new ArrayList<>();
+
+        for (Map.Entry<UUID, Integer> entry : saved.entrySet()) {
+            int id = entry.getValue();
+            while (players.size() <= id) {
+                players.add(null);
+            }
+            players.set(id, entry.getKey());
+            ids.put(entry.getKey(), id);
+        }
+    }
+
+    /**
+     * Get the id of a player, giving them a new id if they do not have one.
+     *
+     * @param player The UUID of the player.
+     * @return The id.
+     */
+    public int getId(UUID player) {
+        Integer id = ids.get(player);
+        return id != null ? id : addPlayer(player);
+    }
+
+    /**
+     * Get the id of a player without giving them one.
+     *
+     * @param player The UUID of the player.
+     * @return The id, or -1 if the player does not have one.
+     */
+    public int findId(UUID player) {
+        Integer id = ids.get(player);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Get a player from their id.
+     *
+     * @param id The id.
+     * @return The UUID of the player, or null if the id is unknown.
+     */
+    public synchronized UUID getPlayer(int id) {
+        if (id < 0 || id >= players.size()) {
+            return null;
+        }
+        return players.get(id);
+    }
+
+    /**
+     * Get the number of ids handed out.
+     *
+     * @return The number of ids.
+     */
+    public synchronized int size() {
+        return players.size();
+    }
+
+    private synchronized int addPlayer(UUID player) {
+        Integer id = ids.get(player);
+
+        if (id != null) {
+            return id;
+        }
+
+        id = players.size();
+        players.add(player);
+        saved.put(player, id);
+        ids.put(player, id);
+        return id;
+    }
+
+}
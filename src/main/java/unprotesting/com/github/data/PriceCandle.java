@@ -0,0 +1,69 @@
+package unprotesting.com.github.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The class that represents the price and volume of an item over one time period,
+ * rolled up from the transactions made in it.
+ */
+@AllArgsConstructor
+@Data
+public class PriceCandle {
+
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private int buys;
+    private int sells;
+    private int trades;
+
+    /**
+     * Constructor for a candle with a single transaction.
+     *
+     * @param transaction The transaction.
+     */
+    protected PriceCandle(Transaction transaction) {
+        double price = transaction.getPrice();
+        this.open = price;
+        this.high = price;
+        this.low = price;
+        this.close = price;
+        add(transaction);
+    }
+
+    /**
+     * Add a later transaction to the candle.
+     *
+     * @param transaction The transaction.
+     */
+    protected void add(Transaction transaction) {
+        double price = transaction.getPrice();
+        high = Math.max(high, price);
+        low = Math.min(low, price);
+        close = price;
+        trades++;
+
+        if (transaction.getPosition() == Transaction.TransactionType.BUY) {
+            buys += transaction.getAmount();
+        } else {
+            sells += transaction.getAmount();
+        }
+    }
+
+    /**
+     * Merge a candle covering later transactions of the same time period.
+     *
+     * @param later The later candle.
+     */
+    protected void merge(PriceCandle later) {
+        high = Math.max(high, later.high);
+        low = Math.min(low, later.low);
+        close = later.close;
+        buys += later.buys;
+        sells += later.sells;
+        trades += later.trades;
+    }
+
+}
@@ -0,0 +1,29 @@
+package unprotesting.com.github.data;
+
+import java.io.IOException;
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.serializer.GroupSerializerObjectArray;
+
+/**
+ * Serializer for the PriceCandle class.
+ */
+public class PriceCandleSerializer extends GroupSerializerObjectArray<PriceCandle> {
+
+    @Override
+    public void serialize(DataOutput2 out, PriceCandle value) throws IOException {
+        out.writeDouble(value.getOpen());
+        out.writeDouble(value.getHigh());
+        out.writeDouble(value.getLow());
+        out.writeDouble(value.getClose());
+        out.packInt(value.getBuys());
+        out.packInt(value.getSells());
+        out.packInt(value.getTrades());
+    }
+
+    @Override
+    public PriceCandle deserialize(DataInput2 in, int available) throws IOException {
+        return new PriceCandle(in.readDouble(), in.readDouble(), in.readDouble(),
+                in.readDouble(), in.unpackInt(), in.unpackInt(), in.unpackInt());
+    }
+}
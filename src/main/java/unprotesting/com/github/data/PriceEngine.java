@@ -0,0 +1,92 @@
+package unprotesting.com.github.data;
+
+import java.util.stream.IntStream;
+import lombok.Getter;
+import lombok.experimental.UtilityClass;
+import unprotesting.com.github.util.AutoTuneLogger;
+import unprotesting.com.github.util.Format;
+
+/**
+ * The engine that calculates the new price of every shop at the end of a time period.
+ *
+ * <p>The price, the {@link PricingModel} signal and the volatility of each shop are read
+ * into arrays first, holding the lock of each shop once. The new prices are then
+ * calculated from the arrays without any lock, split across the common fork-join pool
+ * for large shops lists, and only then are they applied to the shops together.
+ */
+@UtilityClass
+public class PriceEngine {
+
+    // The number of shops above which the new prices are calculated in parallel.
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    // The time the last update took in milliseconds.
+    @Getter
+    private static volatile long lastDuration;
+    // The number of shops updated per second by the last update.
+    @Getter
+    private static volatile double lastRate;
+
+    /**
+     * Start a new time period for every shop, at its new price.
+     *
+     * @return The number of shops updated.
+     */
+    public int updatePrices() {
+        AutoTuneLogger logger = Format.getLog();
+        long start = System.nanoTime();
+        String[] names = ShopUtil.getShopNames();
+        int count = names.length;
+        Shop[] shops = new Shop[count];
+        double[] prices = new double[count];
+        double[] signals = new double[count];
+        double[] volatilities = new double[count];
+        double[] newPrices = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            Shop shop = ShopUtil.getShop(names[i], true);
+            shops[i] = shop;
+            synchronized (shop) {
+                prices[i] = shop.getPrice();
+                signals[i] = shop.getModel().signal(shop);
+                volatilities[i] = shop.getVolatility();
+            }
+        }
+
+        IntStream range = IntStream.range(0, count);
+        if (count >= PARALLEL_THRESHOLD) {
+            range = range.parallel();
+        }
+
+        range.forEach(i -> newPrices[i] = PricingModel.move(prices[i], signals[i],
+                volatilities[i]));
+
+        // Nothing is changed until every price has been calculated.
+        Database.get().atomically(() -> {
+            for (int i = 0; i < count; i++) {
+                synchronized (shops[i]) {
+                    shops[i].timePeriod(newPrices[i]);
+                }
+                Database.get().putShop(names[i], shops[i]);
+            }
+        });
+
+        for (int i = 0; i < count; i++) {
+            if (newPrices[i] != prices[i]) {
+                logger.config("Price of " + names[i] + " changed from "
+                        + Format.currency(prices[i]) + " to " + Format.currency(newPrices[i]));
+                logger.finer("Changed by " + Format.currency(newPrices[i] - prices[i]));
+                logger.finest("Volatility: " + volatilities[i]);
+                logger.finest("Pricing model: " + shops[i].getModel().getName());
+            }
+        }
+
+        long nanos = System.nanoTime() - start;
+        lastDuration = nanos / 1000000;
+        lastRate = count / Math.max(nanos / 1e9, 1e-9);
+        logger.config("Updated the prices of " + count + " shops in " + lastDuration + "ms ("
+                + Format.number(lastRate) + " shops/s).");
+        return count;
+    }
+
+}
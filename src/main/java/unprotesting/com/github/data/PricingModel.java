@@ -0,0 +1,56 @@
+package unprotesting.com.github.data;
+
+/**
+ * The rule that decides the price of a shop for the next time period.
+ *
+ * <p>A model is chosen for each shop with the pricing-model option in shops.yml, see
+ * {@link PricingModels}. It is called for every shop at the end of each time period,
+ * while the lock of the shop is held, so it must not allocate or change the shop.
+ *
+ * <p>A model only decides which way and how far the price moves, the move itself is
+ * scaled by the price and volatility of the shop, see {@link #move}.
+ */
+public interface PricingModel {
+
+    /**
+     * Get the name of the model, as used in shops.yml.
+     *
+     * @return The name.
+     */
+    String getName();
+
+    /**
+     * Get how the price moves in the next time period, from -1 for the largest fall to
+     * 1 for the largest rise. The latest time period of the history is the one ending.
+     * The caller holds the lock of the shop.
+     *
+     * @param shop The shop.
+     * @return The signal, between -1 and 1.
+     */
+    double signal(Shop shop);
+
+    /**
+     * Get the price for the next time period.
+     *
+     * @param shop The shop.
+     * @return The new price.
+     */
+    default double nextPrice(Shop shop) {
+        synchronized (shop) {
+            return move(shop.getPrice(), signal(shop), shop.getVolatility());
+        }
+    }
+
+    /**
+     * Move a price by a signal, by up to the volatility in percent.
+     *
+     * @param price      The current price.
+     * @param signal     The signal of the model, between -1 and 1.
+     * @param volatility The volatility of the shop in percent.
+     * @return The new price.
+     */
+    static double move(double price, double signal, double volatility) {
+        return price + price * signal * volatility * 0.01;
+    }
+
+}
@@ -0,0 +1,56 @@
+package unprotesting.com.github.data;
+
+import lombok.experimental.UtilityClass;
+import org.bukkit.configuration.ConfigurationSection;
+import unprotesting.com.github.util.Format;
+
+/**
+ * Utility class for choosing pricing models from shops.yml.
+ *
+ * <p>The pricing-model option can be set on a section or a shop, as a name or with
+ * settings:
+ * <pre>
+ * pricing-model: strength
+ * pricing-model:
+ *   type: ewma
+ *   alpha: 0.3
+ * pricing-model:
+ *   type: inventory-target
+ *   target: 1000
+ * </pre>
+ */
+@UtilityClass
+public class PricingModels {
+
+    /**
+     * Load the pricing model set in a configuration section.
+     *
+     * @param config   The configuration section of a shop or section, may be null.
+     * @param fallback The model to use if none is set.
+     * @return The pricing model.
+     */
+    public PricingModel load(ConfigurationSection config, PricingModel fallback) {
+        if (config == null || !config.contains("pricing-model")) {
+            return fallback;
+        }
+
+        ConfigurationSection settings = config.getConfigurationSection("pricing-model");
+        String type = settings != null ? settings.getString("type", "strength")
+                : config.getString("pricing-model", "strength");
+
+        switch (type.toLowerCase()) {
+            case "strength":
+                return StrengthModel.INSTANCE;
+            case "ewma":
+                return new FlowModel(settings != null ? settings.getDouble("alpha", 0.3) : 0.3);
+            case "inventory-target":
+                return new InventoryTargetModel(
+                        settings != null ? settings.getDouble("target", 0) : 0);
+            default:
+                Format.getLog().warning("Unknown pricing model " + type + " in "
+                        + config.getCurrentPath() + ", using " + fallback.getName() + ".");
+                return fallback;
+        }
+    }
+
+}
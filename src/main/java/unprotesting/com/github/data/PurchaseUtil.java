@@ -2,8 +2,6 @@ package unprotesting.com.github.data;
 
 import lombok.experimental.UtilityClass;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
-import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.enchantments.Enchantment;
@@ -15,6 +13,8 @@ import unprotesting.com.github.config.Config;
 import unprotesting.com.github.data.Transaction.TransactionType;
 import unprotesting.com.github.util.EconomyUtil;
 import unprotesting.com.github.util.Format;
+import unprotesting.com.github.util.MessageTemplate;
+import unprotesting.com.github.util.MessageTemplate.Slots;
 
 import java.util.HashMap;
 import java.util.Objects;
@@ -43,7 +43,7 @@ public class PurchaseUtil {
         double price = isBuy ? shop.getPrice() : shop.getSellPrice();
         double total = price * amount;
         double balance = EconomyUtil.getEconomy().getBalance(player);
-        TagResolver r = getTagResolver(display, price, amount, balance, shop.getSetting());
+        Slots r = getSlots(display, price, amount, balance, shop.getSetting());
         UUID uuid = player.getUniqueId();
         Config config = Config.get();
 
@@ -76,7 +76,7 @@ public class PurchaseUtil {
 
         TransactionType position = isBuy ? TransactionType.BUY : TransactionType.SELL;
         Transaction transaction = new Transaction(price, amount, uuid, name, position);
-        Database.get().transactions.put(System.currentTimeMillis(), transaction);
+        ShopUtil.addTransaction(transaction);
         EconomyDataUtil.increaseEconomyData("GDP", total / 2);
 
         if (isBuy) {
@@ -86,9 +86,9 @@ public class PurchaseUtil {
         }
 
         if (isBuy) {
-            EconomyUtil.getEconomy().withdrawPlayer(player, total);
+            EconomyUtil.withdraw(player, total);
         } else {
-            EconomyUtil.getEconomy().depositPlayer(player, total);
+            EconomyUtil.deposit(player, total);
         }
 
         String message = isBuy ? config.getShopPurchase() : config.getShopSell();
@@ -110,7 +110,7 @@ public class PurchaseUtil {
         double total = 0;
         double balance = EconomyUtil.getEconomy().getBalance(player);
         UUID uuid = player.getUniqueId();
-        TagResolver r = getTagResolver(item.displayName(), total / amount, amount, balance, null);
+        Slots r = getSlots(item.displayName(), total / amount, amount, balance, null);
         Config config = Config.get();
 
         for (Enchantment enchantment : item.getEnchantments().keySet()) {
@@ -125,7 +125,7 @@ public class PurchaseUtil {
             double price = shop.getSellPrice() * item.getEnchantmentLevel(enchantment);
             price = scalePriceToDurability(item, price);
             total += price * amount;
-            r = getTagResolver(item.displayName(), price, amount, balance, null);
+            r = getSlots(item.displayName(), price, amount, balance, null);
 
             if (config.isEnableSellLimits()
                     && ShopUtil.getSellsLeft(player, enchantmentName) - amount < 0) {
@@ -154,14 +154,14 @@ public class PurchaseUtil {
         }
 
         total += price * amount;
-        r = getTagResolver(item.displayName(), price, amount, balance, null);
+        r = getSlots(item.displayName(), price, amount, balance, null);
 
         if (config.isEnableSellLimits() && ShopUtil.getSellsLeft(player, itemName) - amount < 0) {
             Format.sendMessage(player, config.getRunOutOfSells(), r);
             success = false;
         }
 
-        r = getTagResolver(item.displayName(), total / amount, amount, balance, null);
+        r = getSlots(item.displayName(), total / amount, amount, balance, null);
 
         if (!success) {
             returnItem(player, item);
@@ -175,7 +175,7 @@ public class PurchaseUtil {
         }
 
         createTransaction(amount, total, uuid, itemName, itemShop, price);
-        EconomyUtil.getEconomy().depositPlayer(player, total);
+        EconomyUtil.deposit(player, total);
         Format.sendMessage(player, config.getShopSell(), r);
 
     }
@@ -191,7 +191,7 @@ public class PurchaseUtil {
             Shop itemShop, double price) {
         Transaction transaction = new Transaction(
                 price, amount, uuid, itemName, TransactionType.SELL);
-        Database.get().transactions.put(System.currentTimeMillis(), transaction);
+        ShopUtil.addTransaction(transaction);
         EconomyDataUtil.increaseEconomyData("GDP", total / 2);
         double loss = itemShop.getPrice() - itemShop.getSellPrice();
         EconomyDataUtil.increaseEconomyData("LOSS", loss * amount);
@@ -199,20 +199,18 @@ public class PurchaseUtil {
         ShopUtil.putShop(itemName, itemShop);
     }
 
-    public TagResolver getTagResolver(Component display, double price,
+    public Slots getSlots(Component display, double price,
             int amount, double balance, CollectFirst cf) {
-        TagResolver.Builder builder = TagResolver.builder();
-        builder.resolver(TagResolver.resolver(
-                Placeholder.component("item", display),
-                Placeholder.parsed("total", Format.currency(price * amount)),
-                Placeholder.parsed("price", Format.currency(price)),
-                Placeholder.parsed("amount", Integer.toString(amount)),
-                Placeholder.parsed("balance", Format.currency(balance))));
+        Slots slots = MessageTemplate.slots()
+                .component("item", display)
+                .parsed("total", Format.currency(price * amount))
+                .parsed("price", Format.currency(price))
+                .parsed("amount", Integer.toString(amount))
+                .parsed("balance", Format.currency(balance));
         if (cf != null) {
-            builder.resolver(Placeholder.parsed("collect-first-setting",
-                    cf.getSetting().toString().toLowerCase()));
+            slots.parsed("collect-first-setting", cf.getSetting().toString().toLowerCase());
         }
-        return builder.build();
+        return slots;
     }
 
     private Shop getAssociatedShop(Player player, String itemName) {
@@ -227,7 +225,7 @@ public class PurchaseUtil {
     }
 
     private boolean item(Player player, String name, int amount,
-            boolean isBuy, TagResolver r) {
+            boolean isBuy, Slots r) {
         PlayerInventory inv = player.getInventory();
         ItemStack item = new ItemStack(Objects.requireNonNull(
                 Material.matchMaterial(name)), amount);
@@ -257,7 +255,7 @@ public class PurchaseUtil {
     }
 
     private boolean enchant(Player player, String name, int amount,
-            boolean isBuy, TagResolver r) {
+            boolean isBuy, Slots r) {
         Enchantment enchantment = Enchantment.getByKey(NamespacedKey.minecraft(name));
         ItemStack item = player.getInventory().getItemInMainHand();
 
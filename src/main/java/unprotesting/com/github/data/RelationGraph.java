@@ -0,0 +1,363 @@
+package unprotesting.com.github.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * The graph of related shops and how closely their prices move together.
+ *
+ * <p>Only pairs set with the related option in shops.yml, or detected as forms of the
+ * same material such as iron_ore, raw_iron, iron_ingot and iron_block, are tracked. For each pair the correlation
+ * of the price changes of both shops is kept as exponentially weighted sums, which are
+ * updated once per time period in a single pass over primitive arrays.
+ */
+public class RelationGraph {
+
+    // How much the sums of earlier time periods are kept each time period.
+    private static final double DECAY = 0.95;
+    // The number of past time periods replayed when the graph is built.
+    private static final int REPLAY = 256;
+    // The largest group of shops detected as related from their names.
+    private static final int MAX_FAMILY = 8;
+    // The name suffixes of the forms of a material, like iron_ore and iron_ingot.
+    private static final String[] SUFFIXES = { "_ore", "_ingot", "_nugget", "_block" };
+    // The name prefixes of ores in other stones, like deepslate_iron_ore.
+    private static final String[] ORE_PREFIXES = { "deepslate_", "nether_" };
+    // The name prefix of raw materials, like raw_iron and raw_iron_block.
+    private static final String RAW = "raw_";
+
+    // The names of the shops in the graph, by index.
+    private final String[] names;
+    // The index of each shop name.
+    private final Map<String, Integer> index;
+    // The two shops of each pair.
+    private final int[] first;
+    private final int[] second;
+    // The pairs of each shop.
+    private final int[][] pairs;
+    // The weighted sums of the price changes of each pair.
+    private final double[] weight;
+    private final double[] sumX;
+    private final double[] sumY;
+    private final double[] sumXx;
+    private final double[] sumYy;
+    private final double[] sumXy;
+    // The price change of each shop in the time period being added, reused every update.
+    private final double[] changes;
+    private final boolean[] known;
+
+    private RelationGraph(String[] names, int[] first, int[] second) {
+        int count = first.length;
+        this.names = names;
+        this.index = new HashMap<>();
+        this.first = first;
+        this.second = second;
+        this.weight = new double[count];
+        this.sumX = new double[count];
+        this.sumY = new double[count];
+        this.sumXx = new double[count];
+        this.sumYy = new double[count];
+        this.sumXy = new double[count];
+        this.changes = new double[names.length];
+        this.known = new boolean[names.length];
+
+        for (int i = 0; i < names.length; i++) {
+            index.put(names[i], i);
+        }
+
+        int[] degree = new int[names.length];
+        for (int p = 0; p < count; p++) {
+            degree[first[p]]++;
+            degree[second[p]]++;
+        }
+
+        this.pairs = new int[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            pairs[i] = new int[degree[i]];
+            degree[i] = 0;
+        }
+
+        for (int p = 0; p < count; p++) {
+            pairs[first[p]][degree[first[p]]++] = p;
+            pairs[second[p]][degree[second[p]]++] = p;
+        }
+    }
+
+    /**
+     * Build the graph for the shops, replaying their recent history.
+     *
+     * @param shops     The shops config, where each shop may list related shops.
+     * @param shopNames The names of every shop.
+     * @param detect    Whether to relate shops by their names.
+     * @return The graph.
+     */
+    protected static RelationGraph build(ConfigurationSection shops, Collection<String> shopNames,
+            boolean detect) {
+        Map<String, List<String>> related = new LinkedHashMap<>();
+
+        if (shops != null) {
+            for (String sectionName : shops.getKeys(false)) {
+                ConfigurationSection section = shops.getConfigurationSection(sectionName);
+                for (String name : section.getKeys(false)) {
+                    for (String other : section.getStringList(name + ".related")) {
+                        addPair(related, name.toLowerCase(), other.toLowerCase(), shopNames);
+                    }
+                }
+            }
+        }
+
+        if (detect) {
+            Map<String, List<String>> families = new HashMap<>();
+            for (String name : shopNames) {
+                String family = getFamily(name);
+                if (family != null) {
+                    families.computeIfAbsent(family, key -> new ArrayList<>()).add(name);
+                }
+            }
+
+            // The material itself, like iron or coal, only joins a family of its forms.
+            for (String name : shopNames) {
+                List<String> family = families.get(name);
+                if (family != null) {
+                    family.add(name);
+                }
+            }
+
+            for (List<String> family : families.values()) {
+                if (family.size() < 2 || family.size() > MAX_FAMILY) {
+                    continue;
+                }
+
+                for (int i = 0; i < family.size(); i++) {
+                    for (int j = i + 1; j < family.size(); j++) {
+                        addPair(related, family.get(i), family.get(j), shopNames);
+                    }
+                }
+            }
+        }
+
+        List<String> names = new ArrayList<>();
+        Map<String, Integer> ids = new HashMap<>();
+        List<int[]> list = new ArrayList<>();
+
+        for (Map.Entry<String, List<String>> entry : related.entrySet()) {
+            for (String other : entry.getValue()) {
+                int a = ids.computeIfAbsent(entry.getKey(), key -> {
+                    names.add(key);
+                    return names.size() - 1;
+                });
+                int b = ids.computeIfAbsent(other, key -> {
+                    names.add(key);
+                    return names.size() - 1;
+                });
+                list.add(new int[] { a, b });
+            }
+        }
+
+        int[] first = new int[list.size()];
+        int[] second = new int[list.size()];
+        for (int p = 0; p < list.size(); p++) {
+            first[p] = list.get(p)[0];
+            second[p] = list.get(p)[1];
+        }
+
+        RelationGraph graph = new RelationGraph(names.toArray(new String[0]), first, second);
+        for (int back = REPLAY; back >= 1; back--) {
+            graph.add(back);
+        }
+        return graph;
+    }
+
+    /**
+     * Add the price changes of the latest time period to every pair.
+     */
+    public synchronized void update() {
+        add(1);
+    }
+
+    /**
+     * Get the correlation of the price changes of two shops.
+     *
+     * @param item  The name of the first shop.
+     * @param other The name of the second shop.
+     * @return The correlation between -1 and 1, or NaN if they are not related
+     *         or there is not enough history yet.
+     */
+    public synchronized double getCorrelation(String item, String other) {
+        Integer a = index.get(item.toLowerCase());
+        Integer b = index.get(other.toLowerCase());
+
+        if (a == null || b == null) {
+            return Double.NaN;
+        }
+
+        for (int p : pairs[a]) {
+            if (first[p] == b || second[p] == b) {
+                return correlation(p);
+            }
+        }
+
+        return Double.NaN;
+    }
+
+    /**
+     * Get the shops related to a shop and their correlations.
+     *
+     * @param item The name of the shop.
+     * @return The map of related shop name to correlation, which may be NaN.
+     */
+    public synchronized Map<String, Double> getRelated(String item) {
+        Map<String, Double> related = new LinkedHashMap<>();
+        Integer a = index.get(item.toLowerCase());
+
+        if (a == null) {
+            return related;
+        }
+
+        for (int p : pairs[a]) {
+            related.put(names[first[p] == a ? second[p] : first[p]], correlation(p));
+        }
+
+        return related;
+    }
+
+    /**
+     * Get every pair as CSV rows of item, related item, correlation and weight.
+     *
+     * @return The rows, without a header.
+     */
+    public synchronized List<String> toCsv() {
+        List<String> rows = new ArrayList<>(first.length);
+        for (int p = 0; p < first.length; p++) {
+            rows.add(names[first[p]] + "," + names[second[p]] + ","
+                    + correlation(p) + "," + weight[p]);
+        }
+        return rows;
+    }
+
+    /**
+     * Get the number of related pairs.
+     *
+     * @return The number of pairs.
+     */
+    public int size() {
+        return first.length;
+    }
+
+    private void add(int back) {
+        for (int i = 0; i < names.length; i++) {
+            Shop shop = ShopUtil.getShop(names[i], false);
+            known[i] = false;
+
+            if (shop == null) {
+                continue;
+            }
+
+            ShopHistory history = shop.getHistory();
+            int size = history.getSize();
+
+            if (size - back - 1 < 0) {
+                continue;
+            }
+
+            double before = history.getPrice(size - back - 1);
+            if (before <= 0) {
+                continue;
+            }
+
+            changes[i] = history.getPrice(size - back) / before - 1;
+            known[i] = true;
+        }
+
+        for (int p = 0; p < first.length; p++) {
+            int a = first[p];
+            int b = second[p];
+
+            if (!known[a] || !known[b]) {
+                continue;
+            }
+
+            double x = changes[a];
+            double y = changes[b];
+            weight[p] = weight[p] * DECAY + 1;
+            sumX[p] = sumX[p] * DECAY + x;
+            sumY[p] = sumY[p] * DECAY + y;
+            sumXx[p] = sumXx[p] * DECAY + x * x;
+            sumYy[p] = sumYy[p] * DECAY + y * y;
+            sumXy[p] = sumXy[p] * DECAY + x * y;
+        }
+    }
+
+    private double correlation(int p) {
+        double w = weight[p];
+        if (w < 3) {
+            return Double.NaN;
+        }
+
+        double meanX = sumX[p] / w;
+        double meanY = sumY[p] / w;
+        double varX = sumXx[p] / w - meanX * meanX;
+        double varY = sumYy[p] / w - meanY * meanY;
+
+        if (varX <= 0 || varY <= 0) {
+            return Double.NaN;
+        }
+
+        return (sumXy[p] / w - meanX * meanY) / Math.sqrt(varX * varY);
+    }
+
+    /**
+     * Get the material a shop is a form of, like iron for iron_ore, deepslate_iron_ore,
+     * raw_iron, raw_iron_block, iron_ingot, iron_nugget and iron_block.
+     *
+     * @param name The name of the shop.
+     * @return The material, or null if the name is not a form of a material.
+     */
+    private static String getFamily(String name) {
+        String suffix = null;
+        for (String candidate : SUFFIXES) {
+            if (name.endsWith(candidate) && name.length() > candidate.length()) {
+                suffix = candidate;
+                name = name.substring(0, name.length() - candidate.length());
+                break;
+            }
+        }
+
+        boolean raw = name.startsWith(RAW) && name.length() > RAW.length();
+        if (raw) {
+            name = name.substring(RAW.length());
+        }
+
+        if ("_ore".equals(suffix)) {
+            for (String prefix : ORE_PREFIXES) {
+                if (name.startsWith(prefix) && name.length() > prefix.length()) {
+                    name = name.substring(prefix.length());
+                    break;
+                }
+            }
+        }
+
+        return suffix != null || raw ? name : null;
+    }
+
+    private static void addPair(Map<String, List<String>> related, String item, String other,
+            Collection<String> shopNames) {
+        if (item.equals(other) || !shopNames.contains(item) || !shopNames.contains(other)) {
+            return;
+        }
+
+        String a = item.compareTo(other) < 0 ? item : other;
+        String b = a.equals(item) ? other : item;
+        List<String> list = related.computeIfAbsent(a, key -> new ArrayList<>());
+
+        if (!list.contains(b)) {
+            list.add(b);
+        }
+    }
+
+}
@@ -1,8 +1,7 @@
 package unprotesting.com.github.data;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Set;
 import lombok.Getter;
 import net.kyori.adventure.text.Component;
 import org.bukkit.Material;
@@ -12,22 +11,28 @@ import unprotesting.com.github.util.Format;
 
 /**
  * The class that represents a shop section.
+ *
+ * <p>A section does not hold its shops. The names of the shops in it are kept in an
+ * index by the database as shops are loaded, moved and removed, see
+ * {@link #getShopNames()}, and the shops are read from the shop cache when shown.
  */
 @Getter
 public class Section {
 
+    protected final String name;
     protected final ItemStack item;
     protected final boolean backEnabled;
     protected final int posX;
     protected final int posY;
-    protected final Map<String, Shop> shops;
 
     /**
      * Constructor for the section class.
      *
+     * @param name    The name of the section.
      * @param section The configuration section for the section.
      */
     protected Section(String name, ConfigurationSection section) {
+        this.name = name;
         Material material = Material.matchMaterial(section.getString("image", "BARRIER"));
         if (material == null) {
             material = Material.BARRIER;
@@ -41,25 +46,15 @@ public class Section {
         this.backEnabled = section.getBoolean("back-enabled", true);
         this.posX = section.getInt("x", 0);
         this.posY = section.getInt("y", 0);
-        this.shops = loadShops(name);
     }
 
-    protected Map<String, Shop> loadShops(String sectionName) {
-        Map<String, Shop> shops = new HashMap<String, Shop>();
-        for (String shopName : ShopUtil.getShopNames()) {
-            Shop shop = ShopUtil.getShop(shopName, true);
-
-            if (shop.getSection() == null) {
-                Format.getLog().warning("Shop " + shopName + " has no section!");
-                continue;
-            }
-
-            if (shop.getSection().equalsIgnoreCase(sectionName)) {
-                shops.put(shopName, shop);
-            }
-        }
-
-        return shops;
+    /**
+     * Get the names of the shops in this section.
+     *
+     * @return A live, read only view of the shop names.
+     */
+    public Set<String> getShopNames() {
+        return Database.get().getSectionShops(name);
     }
 
 }
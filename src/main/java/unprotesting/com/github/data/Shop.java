@@ -1,13 +1,13 @@
 package unprotesting.com.github.data;
 
 import java.io.Serializable;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
-import lombok.Setter;
 import net.kyori.adventure.text.Component;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
@@ -21,6 +21,12 @@ import unprotesting.com.github.util.Format;
 
 /**
  * The class that represents a shop.
+ *
+ * <p>Shops are changed by purchases on the main thread and by async tasks like the
+ * autosell payout and the time period update. Every method that reads or changes the
+ * counters of a shop is synchronized on the shop, so each change is applied whole and
+ * none is lost. Code that needs several calls to agree, like the database writing a shop,
+ * also synchronizes on the shop. A shop lock is never held while taking another shop lock.
  */
 @Builder
 @AllArgsConstructor
@@ -28,29 +34,22 @@ public class Shop implements Serializable {
 
     private static final long serialVersionUID = -6381163788906178955L;
 
-    private static double M = 0.05;
-    private static double Z = 1.75;
+    // The settings part of the shop, saved in the shops map.
+    protected static final int SETTINGS = 1;
+    // The counters part of the shop, saved in the shop state map.
+    protected static final int STATE = 2;
 
-    // History of buys for each time period.
-    protected int[] buys;
-    // History of sells for each time period.
-    protected int[] sells;
-    // History of prices for each time period.
+    // History of buys, sells and prices for each time period.
     @Getter
-    protected double[] prices;
-    // The size of the historical data.
-    @Getter
-    protected int size;
+    protected ShopHistory history;
     // Whether the item is an enchantment
     @Getter
     protected final boolean enchantment;
     // The collect first setting for this shop
     @Getter
-    @Setter
     protected CollectFirst setting;
-    // The autosell data for this shop
-    @Getter
-    protected Map<UUID, Integer> autosell;
+    // The autosell data for this shop, by player id
+    protected PlayerCounts autosell;
     // The total buys for this shop
     @Getter
     protected int totalBuys;
@@ -83,12 +82,25 @@ public class Shop implements Serializable {
     // The section this shop belongs to.
     @Getter
     protected String section;
-    // The recent buys for this item
-    @Getter
-    protected Map<UUID, Integer> recentBuys;
-    // The recent sells for this item
-    @Getter
-    protected Map<UUID, Integer> recentSells;
+    // The recent buys for this item, by player id
+    protected PlayerCounts recentBuys;
+    // The recent sells for this item, by player id
+    protected PlayerCounts recentSells;
+    // The parts of the shop that changed since it was last saved.
+    protected transient int dirty;
+    // The ids of the players whose counts changed since the shop was last saved.
+    protected transient BitSet dirtyPlayers;
+    // The buys and sells sampled by strength(), weighted by how often each is sampled.
+    protected transient double strengthBuys;
+    protected transient double strengthSells;
+    // The history size strengthBuys and strengthSells were added up for, 0 if never.
+    protected transient int strengthSize;
+    // The StrengthSchedule generation strengthBuys and strengthSells were added up with.
+    protected transient int strengthGeneration;
+    // The pricing model from the config, null to use the default.
+    protected transient PricingModel model;
+    // Increased whenever something shown in the shop lore changes, see getEpoch().
+    protected transient int epoch;
 
     /**
      * Constructor for the shop class.
@@ -97,18 +109,17 @@ public class Shop implements Serializable {
      * @param isEnchantment Whether the item is an enchantment.
      */
     protected Shop(ConfigurationSection config, String sectionName, boolean isEnchantment) {
-        this.buys = new int[1];
-        this.sells = new int[1];
-        this.prices = new double[] { config.getDouble("price") };
+        this.history = new ShopHistory(config.getDouble("price"));
         this.enchantment = isEnchantment;
-        this.size = 1;
         this.totalBuys = 0;
         this.totalSells = 0;
-        this.autosell = new HashMap<UUID, Integer>();
-        this.recentBuys = new HashMap<UUID, Integer>();
-        this.recentSells = new HashMap<UUID, Integer>();
+        this.autosell = new PlayerCounts();
+        this.recentBuys = new PlayerCounts();
+        this.recentSells = new PlayerCounts();
         this.setting = new CollectFirst(config.getString("collect-first", "none"));
+        this.dirtyPlayers = new BitSet();
         this.loadConfiguration(config, sectionName);
+        this.markAllDirty();
     }
 
     /**
@@ -116,7 +127,7 @@ public class Shop implements Serializable {
      *
      * @param config The config section.
      */
-    protected void loadConfiguration(ConfigurationSection config, String sectionName) {
+    protected synchronized void loadConfiguration(ConfigurationSection config, String sectionName) {
         AutoTuneLogger logger = Format.getLog();
         locked = config.getBoolean("locked", false);
         logger.finest("Locked: " + this.locked);
@@ -132,22 +143,19 @@ public class Shop implements Serializable {
         logger.finest("Max Sells: " + this.maxSells);
         updateRate = config.getInt("update-rate", 1);
         logger.finest("Update Rate: " + this.updateRate);
+        ConfigurationSection sectionConfig = Config.get().getSections() == null ? null
+                : Config.get().getSections().getConfigurationSection(sectionName);
+        model = PricingModels.load(config,
+                PricingModels.load(sectionConfig, StrengthModel.INSTANCE));
+        logger.finest("Pricing Model: " + getModel().getName());
+        dirty |= SETTINGS;
+        epoch++;
         double startPrice = config.getDouble("price");
 
-        if (startPrice != prices[0]) {
-            // Check if price in prices array
-            boolean found = false;
-            for (double price : prices) {
-                if (price == startPrice) {
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
-                prices[size - 1] = startPrice;
-                logger.info("Price changed for " + section + " to " + startPrice
-                        + " because the price was changed in the config.");
-            }
+        if (startPrice != history.getPrice(0) && !history.containsPrice(startPrice)) {
+            setPrice(startPrice);
+            logger.info("Price changed for " + section + " to " + startPrice
+                    + " because the price was changed in the config.");
         }
 
         if (section == null) {
@@ -160,8 +168,8 @@ public class Shop implements Serializable {
      *
      * @return The buy count.
      */
-    public int getBuyCount() {
-        return buys[size - 1];
+    public synchronized int getBuyCount() {
+        return history.getBuys(getSize() - 1);
     }
 
     /**
@@ -169,8 +177,8 @@ public class Shop implements Serializable {
      *
      * @return The sell count.
      */
-    public int getSellCount() {
-        return sells[size - 1];
+    public synchronized int getSellCount() {
+        return history.getSells(getSize() - 1);
     }
 
     /**
@@ -178,8 +186,8 @@ public class Shop implements Serializable {
      *
      * @return The price.
      */
-    public double getPrice() {
-        return prices[size - 1];
+    public synchronized double getPrice() {
+        return history.getPrice(getSize() - 1);
     }
 
     /**
@@ -187,14 +195,25 @@ public class Shop implements Serializable {
      *
      * @param price The price.
      */
-    public void setPrice(double price) {
-        prices[size - 1] = price;
+    public synchronized void setPrice(double price) {
+        history.setPrice(price);
+        dirty |= STATE;
+        epoch++;
+    }
+
+    /**
+     * Get the number of time periods in the history.
+     *
+     * @return The size of the history.
+     */
+    public synchronized int getSize() {
+        return history.getSize();
     }
 
     /**
      * Get the sell price.
      */
-    public double getSellPrice() {
+    public synchronized double getSellPrice() {
         return getPrice() - getPrice() * getSpd() * 0.01;
     }
 
@@ -203,18 +222,29 @@ public class Shop implements Serializable {
      *
      * @param buyCount The additional buys.
      */
-    public void addBuys(UUID player, int buyCount) {
+    public synchronized void addBuys(UUID player, int buyCount) {
+        addBuys(Database.get().getPlayers().getId(player), buyCount);
+    }
+
+    /**
+     * Add to the latest buy count of a player by id.
+     *
+     * @param id       The player id from the {@link PlayerIndex}.
+     * @param buyCount The additional buys.
+     */
+    protected synchronized void addBuys(int id, int buyCount) {
         AutoTuneLogger logger = Format.getLog();
-        if (recentBuys.containsKey(player)) {
-            recentBuys.merge(player, buyCount, (a, b) -> (int) a + (int) b);
-            logger.finest("Recent buys: " + recentBuys.get(player));
-        } else {
-            recentBuys.put(player, buyCount);
-            logger.finest("New recent buys: " + recentBuys.get(player));
+        logger.finest("Recent buys: " + recentBuys.add(id, buyCount));
+        history.addBuys(buyCount);
+        StrengthSchedule schedule = StrengthSchedule.get(getSize());
+        if (strengthSize == getSize() && strengthGeneration == schedule.generation) {
+            strengthBuys += schedule.getLatestWeight() * buyCount;
         }
-        this.buys[size - 1] = buyCount + buys[size - 1];
-        logger.finer("Increased buys by " + buyCount + " to " + buys[size - 1]);
-        logger.finest("Updated at time period " + (size - 1));
+        dirty |= STATE;
+        epoch++;
+        dirtyPlayers.set(id);
+        logger.finer("Increased buys by " + buyCount + " to " + getBuyCount());
+        logger.finest("Updated at time period " + (getSize() - 1));
     }
 
     /**
@@ -222,42 +252,100 @@ public class Shop implements Serializable {
      *
      * @param sellCount The additional sells.
      */
-    public void addSells(UUID player, int sellCount) {
+    public synchronized void addSells(UUID player, int sellCount) {
+        addSells(Database.get().getPlayers().getId(player), sellCount);
+    }
+
+    /**
+     * Add to the latest sell count of a player by id.
+     *
+     * @param id        The player id from the {@link PlayerIndex}.
+     * @param sellCount The additional sells.
+     */
+    protected synchronized void addSells(int id, int sellCount) {
         AutoTuneLogger logger = Format.getLog();
-        if (recentSells.containsKey(player)) {
-            recentSells.merge(player, sellCount, (a, b) -> (int) a + (int) b);
-            logger.finest("Recent sells: " + recentSells.get(player));
-        } else {
-            recentSells.put(player, sellCount);
-            logger.finest("New recent sells: " + recentSells.get(player));
+        logger.finest("Recent sells: " + recentSells.add(id, sellCount));
+        history.addSells(sellCount);
+        StrengthSchedule schedule = StrengthSchedule.get(getSize());
+        if (strengthSize == getSize() && strengthGeneration == schedule.generation) {
+            strengthSells += schedule.getLatestWeight() * sellCount;
         }
-        this.sells[size - 1] = sellCount + sells[size - 1];
-        logger.finer("Increased sells by " + sellCount + " to " + sells[size - 1]);
-        logger.finest("Updated at time period " + (size - 1));
+        dirty |= STATE;
+        epoch++;
+        dirtyPlayers.set(id);
+        logger.finer("Increased sells by " + sellCount + " to " + getSellCount());
+        logger.finest("Updated at time period " + (getSize() - 1));
     }
 
     /**
      * Clear the autosell data.
      */
-    public void clearAutosell() {
+    public synchronized void clearAutosell() {
+        markDirty(autosell);
         autosell.clear();
     }
 
+    /**
+     * Take the autosell counts to be paid out, clearing them in the same step so
+     * sales made while paying out are kept for the next payout.
+     *
+     * @return The map of player uuid to autosell count.
+     */
+    public synchronized Map<UUID, Integer> drainAutosell() {
+        if (autosell.isEmpty()) {
+            return Map.of();
+        }
+
+        PlayerIndex players = Database.get().getPlayers();
+        Map<UUID, Integer> drained = new HashMap<>();
+        for (int id : autosell.players()) {
+            drained.put(players.getPlayer(id), autosell.get(id));
+        }
+        clearAutosell();
+        return drained;
+    }
+
+    /**
+     * Get the buys of a player since the price last changed.
+     *
+     * @param player The player uuid.
+     * @return The recent buys.
+     */
+    public synchronized int getRecentBuys(UUID player) {
+        return recentBuys.get(Database.get().getPlayers().findId(player));
+    }
+
+    /**
+     * Get the sells of a player since the price last changed.
+     *
+     * @param player The player uuid.
+     * @return The recent sells.
+     */
+    public synchronized int getRecentSells(UUID player) {
+        return recentSells.get(Database.get().getPlayers().findId(player));
+    }
+
     /**
      * Increase the autosell count for a uuid.
      *
      * @param uuid  The uuid.
      * @param count The count.
      */
-    public void addAutosell(UUID uuid, int count) {
-        AutoTuneLogger logger = Format.getLog();
-        if (autosell.containsKey(uuid)) {
-            autosell.merge(uuid, count, (a, b) -> (int) a + (int) b);
-            logger.finest("Autosell: " + autosell.get(uuid) + " for " + uuid);
-        } else {
-            autosell.put(uuid, count);
-            logger.finest("New autosell: " + autosell.get(uuid) + " for " + uuid);
-        }
+    public synchronized void addAutosell(UUID uuid, int count) {
+        int id = Database.get().getPlayers().getId(uuid);
+        Format.getLog().finest("Autosell: " + autosell.add(id, count) + " for " + uuid);
+        dirtyPlayers.set(id);
+    }
+
+    /**
+     * Set the collect first setting for this shop.
+     *
+     * @param setting The collect first setting.
+     */
+    public synchronized void setSetting(CollectFirst setting) {
+        this.setting = setting;
+        dirty |= SETTINGS;
+        epoch++;
     }
 
     /**
@@ -265,7 +353,7 @@ public class Shop implements Serializable {
      *
      * @return Whether the player has unlocked this item.
      */
-    public boolean isUnlocked(UUID player) {
+    public synchronized boolean isUnlocked(UUID player) {
         if (Config.get().isEnableCollection()) {
             return true;
         } else if (setting.getSetting().equals(CollectFirstSetting.SERVER)) {
@@ -280,9 +368,12 @@ public class Shop implements Serializable {
     /**
      * Clear the most recent buys/sells.
      */
-    public void clearRecentPurchases() {
+    public synchronized void clearRecentPurchases() {
+        markDirty(recentBuys);
+        markDirty(recentSells);
         recentBuys.clear();
         recentSells.clear();
+        epoch++;
     }
 
     private double getSpd() {
@@ -297,75 +388,228 @@ public class Shop implements Serializable {
      *
      * @param price The new price for the time period.
      */
-    public void timePeriod(double price) {
-        int[] newBuys = new int[size + 1];
-        int[] newSells = new int[size + 1];
-        double[] newPrices = new double[size + 1];
-
-        this.totalBuys += buys[size - 1];
-        this.totalSells += sells[size - 1];
-
-        for (int i = 0; i < size; i++) {
-            newBuys[i] = buys[i];
-            newSells[i] = sells[i];
-            newPrices[i] = prices[i];
-        }
-
-        newBuys[size] = 0;
-        newSells[size] = 0;
-        double newPrice = prices[size - 1];
+    public synchronized void timePeriod(double price) {
+        this.totalBuys += getBuyCount();
+        this.totalSells += getSellCount();
+        double newPrice = getPrice();
 
         if (!locked && updateRate > 0) {
             if (timeSinceUpdate >= updateRate) {
                 newPrice = price;
                 this.timeSinceUpdate = 0;
-                this.recentBuys.clear();
-                this.recentSells.clear();
+                clearRecentPurchases();
             }
             this.timeSinceUpdate++;
         }
 
-        newPrices[size] = newPrice;
-        this.buys = newBuys;
-        this.sells = newSells;
-        this.prices = newPrices;
-        this.size++;
+        history.append(newPrice);
+        dirty |= STATE;
+        epoch++;
     }
 
     /**
      * Update the percentage change for the shop.
      */
-    protected void updateChange() {
+    protected synchronized void updateChange() {
+        int size = getSize();
         if (locked || size < 2) {
             return;
         }
 
         int dailyTimePeriods = (int) Math.floor(1f / (Config.get().getTimePeriod() / 1440f));
         int start = size - dailyTimePeriods > 0 ? size - dailyTimePeriods : 0;
-        this.change = (prices[size - 1] - prices[start]) / prices[start];
+        double startPrice = history.getPrice(start);
+        this.change = (getPrice() - startPrice) / startPrice;
+        dirty |= STATE;
+        epoch++;
     }
 
     /**
      * Loads the buy vs sell strength for the shop.
+     *
+     * <p>The sampled buys and sells are added up once per time period and then
+     * kept up to date as trades are made, so this is cheap to call.
      */
-    public double strength() {
-        int x = 0;
-        int y = 1;
-        double buy = 0;
-        double sell = 0;
-
-        while (y <= size) {
-            buy += buys[size - y];
-            sell += sells[size - y];
-            x++;
-            y = (int) Math.round(M * Math.pow(x, Z) + 0.5);
+    public synchronized double strength() {
+        int size = getSize();
+        StrengthSchedule schedule = StrengthSchedule.get(size);
+
+        if (strengthSize != size || strengthGeneration != schedule.generation) {
+            double buy = 0;
+            double sell = 0;
+
+            for (int i = 0; i < schedule.offsets.length && schedule.offsets[i] <= size; i++) {
+                buy += schedule.weights[i] * history.getBuys(size - schedule.offsets[i]);
+                sell += schedule.weights[i] * history.getSells(size - schedule.offsets[i]);
+            }
+
+            this.strengthBuys = buy;
+            this.strengthSells = sell;
+            this.strengthSize = size;
+            this.strengthGeneration = schedule.generation;
         }
 
-        if (buy == 0 && sell == 0) {
+        if (strengthBuys == 0 && strengthSells == 0) {
             return 0;
         }
 
-        return (buy - sell) / (buy + sell);
+        return (strengthBuys - strengthSells) / (strengthBuys + strengthSells);
+    }
+
+    /**
+     * Get the price the shop would move to if the time period ended now.
+     *
+     * @return The projected price for the next time period.
+     */
+    public synchronized double getNextPrice() {
+        double price = getPrice();
+
+        if (locked || updateRate <= 0 || timeSinceUpdate < updateRate) {
+            return price;
+        }
+
+        return getModel().nextPrice(this);
+    }
+
+    /**
+     * Get the price epoch of the shop, which changes whenever the price, the counters
+     * or the settings of the shop change. Anything rendered from the shop can be
+     * reused until the epoch changes.
+     *
+     * @return The epoch.
+     */
+    public synchronized int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Get the buys a player has left until the price next changes.
+     *
+     * @param player The player uuid.
+     * @return The buys left.
+     */
+    public synchronized int getBuysLeft(UUID player) {
+        return maxBuys - getRecentBuys(player);
+    }
+
+    /**
+     * Get the sells a player has left until the price next changes.
+     *
+     * @param player The player uuid.
+     * @return The sells left.
+     */
+    public synchronized int getSellsLeft(UUID player) {
+        return maxSells - getRecentSells(player);
+    }
+
+    /**
+     * Get the pricing model of the shop.
+     *
+     * @return The pricing model set in the config, or the strength model.
+     */
+    public PricingModel getModel() {
+        return model != null ? model : StrengthModel.INSTANCE;
+    }
+
+    /**
+     * Get the counters of the shop that change with every purchase.
+     *
+     * @return The state of the shop.
+     */
+    protected synchronized ShopState getState() {
+        return new ShopState(getSize(), getBuyCount(), getSellCount(), getPrice(),
+                totalBuys, totalSells, timeSinceUpdate, change);
+    }
+
+    /**
+     * Restore the counters of the shop from a saved state.
+     *
+     * @param state The saved state.
+     */
+    protected synchronized void restoreState(ShopState state) {
+        if (state.getSize() == getSize()) {
+            history.restoreLatest(state.getBuys(), state.getSells(), state.getPrice());
+            this.strengthSize = 0;
+        } else {
+            Format.getLog().warning("Shop state for " + section + " was saved at time period "
+                    + state.getSize() + " but the history has " + getSize() + ".");
+        }
+
+        this.totalBuys = state.getTotalBuys();
+        this.totalSells = state.getTotalSells();
+        this.timeSinceUpdate = state.getTimeSinceUpdate();
+        this.change = state.getChange();
+    }
+
+    /**
+     * Get the recent buys, recent sells and autosell count of a player.
+     *
+     * @param player The player id.
+     * @return The counts, or null if they are all zero.
+     */
+    protected synchronized int[] getPlayerCounts(int player) {
+        int buys = recentBuys.get(player);
+        int sells = recentSells.get(player);
+        int sold = autosell.get(player);
+
+        if (buys == 0 && sells == 0 && sold == 0) {
+            return null;
+        }
+
+        return new int[] { buys, sells, sold };
+    }
+
+    /**
+     * Restore the recent buys, recent sells and autosell count of a player.
+     *
+     * @param player The player id.
+     * @param counts The saved counts.
+     */
+    protected synchronized void restorePlayerCounts(int player, int[] counts) {
+        if (counts[0] != 0) {
+            recentBuys.put(player, counts[0]);
+        }
+        if (counts[1] != 0) {
+            recentSells.put(player, counts[1]);
+        }
+        if (counts[2] != 0) {
+            autosell.put(player, counts[2]);
+        }
+    }
+
+    /**
+     * Whether part of the shop changed since it was last saved.
+     *
+     * @param part The part, either {@link #SETTINGS} or {@link #STATE}.
+     * @return Whether the part needs to be saved.
+     */
+    protected boolean isDirty(int part) {
+        return (dirty & part) != 0;
+    }
+
+    /**
+     * Mark every part of the shop as needing to be saved.
+     */
+    protected synchronized void markAllDirty() {
+        dirty = SETTINGS | STATE;
+        markDirty(recentBuys);
+        markDirty(recentSells);
+        markDirty(autosell);
+    }
+
+    private void markDirty(PlayerCounts counts) {
+        for (int id : counts.players()) {
+            dirtyPlayers.set(id);
+        }
+    }
+
+    /**
+     * Mark every part of the shop as saved.
+     */
+    protected synchronized void markClean() {
+        dirty = 0;
+        dirtyPlayers.clear();
+        history.markClean();
     }
 
     /**
@@ -0,0 +1,230 @@
+package unprotesting.com.github.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * The buy, sell and price history of a shop, stored as a list of fixed-size chunks.
+ *
+ * <p>Only the last chunk is ever modified, so starting a new time period and saving
+ * the history cost the same no matter how many time periods have passed. The counts
+ * and price of the current time period are saved with the {@link ShopState} instead,
+ * so a chunk only needs to be saved again when a time period is started.
+ */
+public class ShopHistory {
+
+    // The chunks of history, oldest first.
+    protected final List<HistoryChunk> chunks;
+    // The number of time periods in the history.
+    @Getter
+    protected int size;
+    // The index of the first chunk that changed since the history was last saved.
+    protected int firstDirtyChunk;
+
+    /**
+     * Constructor for a new history with a single time period.
+     *
+     * @param price The price for the first time period.
+     */
+    protected ShopHistory(double price) {
+        this.chunks = new ArrayList<>();
+        this.chunks.add(new HistoryChunk());
+        this.size = 0;
+        this.firstDirtyChunk = 0;
+        append(price);
+    }
+
+    /**
+     * Constructor for a history loaded from saved chunks.
+     *
+     * @param chunks The saved chunks, oldest first.
+     */
+    protected ShopHistory(List<HistoryChunk> chunks) {
+        this.chunks = chunks;
+        HistoryChunk tail = chunks.get(chunks.size() - 1);
+        this.size = (chunks.size() - 1) * HistoryChunk.CAPACITY + tail.length;
+        this.firstDirtyChunk = chunks.size();
+    }
+
+    /**
+     * Create a history from the flat arrays used by older versions.
+     *
+     * @param buys   The buys for each time period.
+     * @param sells  The sells for each time period.
+     * @param prices The prices for each time period.
+     * @return The history.
+     */
+    protected static ShopHistory fromArrays(int[] buys, int[] sells, double[] prices) {
+        ShopHistory history = new ShopHistory(prices[0]);
+        for (int i = 1; i < prices.length; i++) {
+            history.append(prices[i]);
+        }
+
+        for (int i = 0; i < prices.length; i++) {
+            HistoryChunk chunk = history.chunks.get(i / HistoryChunk.CAPACITY);
+            chunk.buys[i % HistoryChunk.CAPACITY] = buys[i];
+            chunk.sells[i % HistoryChunk.CAPACITY] = sells[i];
+        }
+
+        return history;
+    }
+
+    /**
+     * Get the buy count for a time period.
+     *
+     * @param period The time period, where 0 is the oldest.
+     * @return The buy count.
+     */
+    public int getBuys(int period) {
+        return chunks.get(period / HistoryChunk.CAPACITY).buys[period % HistoryChunk.CAPACITY];
+    }
+
+    /**
+     * Get the sell count for a time period.
+     *
+     * @param period The time period, where 0 is the oldest.
+     * @return The sell count.
+     */
+    public int getSells(int period) {
+        return chunks.get(period / HistoryChunk.CAPACITY).sells[period % HistoryChunk.CAPACITY];
+    }
+
+    /**
+     * Get the price for a time period.
+     *
+     * @param period The time period, where 0 is the oldest.
+     * @return The price.
+     */
+    public double getPrice(int period) {
+        return chunks.get(period / HistoryChunk.CAPACITY).prices[period % HistoryChunk.CAPACITY];
+    }
+
+    /**
+     * Whether the price has been used in any time period.
+     *
+     * @param price The price to look for.
+     * @return Whether the price is in the history.
+     */
+    public boolean containsPrice(double price) {
+        for (HistoryChunk chunk : chunks) {
+            for (int i = 0; i < chunk.length; i++) {
+                if (chunk.prices[i] == price) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add to the buy count of the latest time period.
+     *
+     * @param amount The additional buys.
+     */
+    protected void addBuys(int amount) {
+        HistoryChunk tail = getTail();
+        tail.buys[tail.length - 1] += amount;
+    }
+
+    /**
+     * Add to the sell count of the latest time period.
+     *
+     * @param amount The additional sells.
+     */
+    protected void addSells(int amount) {
+        HistoryChunk tail = getTail();
+        tail.sells[tail.length - 1] += amount;
+    }
+
+    /**
+     * Set the price of the latest time period.
+     *
+     * @param price The price.
+     */
+    protected void setPrice(double price) {
+        HistoryChunk tail = getTail();
+        tail.prices[tail.length - 1] = price;
+    }
+
+    /**
+     * Restore the counts and price of the latest time period from a saved state.
+     *
+     * @param buys  The buys of the latest time period.
+     * @param sells The sells of the latest time period.
+     * @param price The price of the latest time period.
+     */
+    protected void restoreLatest(int buys, int sells, double price) {
+        HistoryChunk tail = getTail();
+        tail.buys[tail.length - 1] = buys;
+        tail.sells[tail.length - 1] = sells;
+        tail.prices[tail.length - 1] = price;
+    }
+
+    /**
+     * Start a new time period, adding a new chunk if the last one is full.
+     *
+     * @param price The price for the new time period.
+     */
+    protected void append(double price) {
+        // The time period being closed has not been saved to its chunk yet.
+        markDirty();
+        HistoryChunk tail = getTail();
+
+        if (tail.isFull()) {
+            tail = new HistoryChunk();
+            chunks.add(tail);
+        }
+
+        tail.buys[tail.length] = 0;
+        tail.sells[tail.length] = 0;
+        tail.prices[tail.length] = price;
+        tail.length++;
+        size++;
+        markDirty();
+    }
+
+    /**
+     * Get the number of chunks in the history.
+     *
+     * @return The chunk count.
+     */
+    protected int getChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * Get a chunk of the history.
+     *
+     * @param index The index of the chunk, where 0 is the oldest.
+     * @return The chunk.
+     */
+    protected HistoryChunk getChunk(int index) {
+        return chunks.get(index);
+    }
+
+    /**
+     * Get the index of the first chunk that needs to be saved.
+     *
+     * @return The index, or the chunk count if nothing changed.
+     */
+    protected int getFirstDirtyChunk() {
+        return firstDirtyChunk;
+    }
+
+    /**
+     * Mark every chunk as saved.
+     */
+    protected void markClean() {
+        firstDirtyChunk = chunks.size();
+    }
+
+    private HistoryChunk getTail() {
+        return chunks.get(chunks.size() - 1);
+    }
+
+    private void markDirty() {
+        firstDirtyChunk = Math.min(firstDirtyChunk, chunks.size() - 1);
+    }
+
+}
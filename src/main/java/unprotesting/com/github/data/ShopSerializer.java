@@ -1,39 +1,29 @@
 package unprotesting.com.github.data;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.BitSet;
 import java.util.UUID;
 import org.mapdb.DataInput2;
 import org.mapdb.DataOutput2;
 import org.mapdb.Serializer;
 
 /**
- * The serializer for the Shop class.
+ * The serializer for the settings of the Shop class.
+ *
+ * <p>The counters, per player counts and history of a shop are saved separately,
+ * see {@link ShopStateSerializer} and {@link HistoryChunkSerializer}.
  */
 public class ShopSerializer implements Serializer<Shop> {
 
+    // Written for shops where this record only stores the settings. Older versions
+    // wrote the size of the history here, which is never negative.
+    private static final int SETTINGS_ONLY = -2;
+
     @Override
     public void serialize(DataOutput2 out, Shop value) throws IOException {
-        out.writeInt(value.size);
-
-        for (int i = 0; i < value.size; i++) {
-            out.writeInt(value.buys[i]);
-            out.writeInt(value.sells[i]);
-            out.writeDouble(value.prices[i]);
-        }
-
+        out.writeInt(SETTINGS_ONLY);
         out.writeBoolean(value.enchantment);
         new CollectFirstSerializer().serialize(out, value.setting);
-        out.writeInt(value.autosell.size());
-
-        for (Map.Entry<UUID, Integer> entry : value.autosell.entrySet()) {
-            UUID.serialize(out, entry.getKey());
-            out.writeInt(entry.getValue());
-        }
-
-        out.writeInt(value.totalBuys);
-        out.writeInt(value.totalSells);
         out.writeBoolean(value.locked);
 
         if (value.customSpd == -1) {
@@ -44,32 +34,44 @@ public class ShopSerializer implements Serializer<Shop> {
         }
 
         out.writeDouble(value.volatility);
-        out.writeDouble(value.change);
         out.writeInt(value.maxBuys);
         out.writeInt(value.maxSells);
         out.writeInt(value.updateRate);
-        out.writeInt(value.timeSinceUpdate);
         out.writeUTF(value.section);
-        out.writeInt(value.recentBuys.size());
-
-        for (Map.Entry<UUID, Integer> entry : value.recentBuys.entrySet()) {
-            UUID.serialize(out, entry.getKey());
-            out.writeInt(entry.getValue());
-        }
+    }
 
-        out.writeInt(value.recentSells.size());
+    @Override
+    public Shop deserialize(DataInput2 input, int available) throws IOException {
+        int format = input.readInt();
 
-        for (Map.Entry<UUID, Integer> entry : value.recentSells.entrySet()) {
-            UUID.serialize(out, entry.getKey());
-            out.writeInt(entry.getValue());
+        if (format != SETTINGS_ONLY) {
+            return deserializeLegacy(input, available, format);
         }
+
+        Shop.ShopBuilder builder = new Shop.ShopBuilder();
+        builder.enchantment(input.readBoolean());
+        builder.setting(new CollectFirstSerializer().deserialize(input, available));
+        builder.locked(input.readBoolean());
+        builder.customSpd(input.readBoolean() ? input.readDouble() : -1);
+        builder.volatility(input.readDouble());
+        builder.maxBuys(input.readInt());
+        builder.maxSells(input.readInt());
+        builder.updateRate(input.readInt());
+        builder.section(input.readUTF());
+        builder.autosell(new PlayerCounts());
+        builder.recentBuys(new PlayerCounts());
+        builder.recentSells(new PlayerCounts());
+        builder.dirtyPlayers(new BitSet());
+        return builder.build();
     }
 
-    @Override
-    public Shop deserialize(DataInput2 input, int available) throws IOException {
+    /**
+     * Read a shop saved as a single record by an older version, with its history inline.
+     * Every part of the shop is marked dirty so it is moved to the new maps on save.
+     */
+    private Shop deserializeLegacy(DataInput2 input, int available, int size)
+            throws IOException {
         Shop.ShopBuilder builder = new Shop.ShopBuilder();
-        int size = input.readInt();
-        builder.size(size);
         int[] buys = new int[size];
         int[] sells = new int[size];
         double[] prices = new double[size];
@@ -78,17 +80,10 @@ public class ShopSerializer implements Serializer<Shop> {
             sells[i] = input.readInt();
             prices[i] = input.readDouble();
         }
-        builder.buys(buys);
-        builder.sells(sells);
-        builder.prices(prices);
+        builder.history(ShopHistory.fromArrays(buys, sells, prices));
         builder.enchantment(input.readBoolean());
         builder.setting(new CollectFirstSerializer().deserialize(input, available));
-        int autosellSize = input.readInt();
-        Map<UUID, Integer> autosell = new HashMap<>();
-        for (int i = 0; i < autosellSize; i++) {
-            autosell.put(UUID.deserialize(input, available), input.readInt());
-        }
-        builder.autosell(autosell);
+        builder.autosell(readCounts(input, available));
         builder.totalBuys(input.readInt());
         builder.totalSells(input.readInt());
         builder.locked(input.readBoolean());
@@ -100,18 +95,21 @@ public class ShopSerializer implements Serializer<Shop> {
         builder.updateRate(input.readInt());
         builder.timeSinceUpdate(input.readInt());
         builder.section(input.readUTF());
-        int recentBuysSize = input.readInt();
-        Map<UUID, Integer> recentBuys = new HashMap<>();
-        for (int i = 0; i < recentBuysSize; i++) {
-            recentBuys.put(UUID.deserialize(input, available), input.readInt());
-        }
-        builder.recentBuys(recentBuys);
-        int recentSellsSize = input.readInt();
-        Map<UUID, Integer> recentSells = new HashMap<>();
-        for (int i = 0; i < recentSellsSize; i++) {
-            recentSells.put(UUID.deserialize(input, available), input.readInt());
+        builder.recentBuys(readCounts(input, available));
+        builder.recentSells(readCounts(input, available));
+        builder.dirtyPlayers(new BitSet());
+        Shop shop = builder.build();
+        shop.markAllDirty();
+        return shop;
+    }
+
+    private PlayerCounts readCounts(DataInput2 input, int available) throws IOException {
+        int size = input.readInt();
+        PlayerIndex players = Database.get().getPlayers();
+        PlayerCounts counts = new PlayerCounts();
+        for (int i = 0; i < size; i++) {
+            counts.put(players.getId(UUID.deserialize(input, available)), input.readInt());
         }
-        builder.recentSells(recentSells);
-        return builder.build();
+        return counts;
     }
 }
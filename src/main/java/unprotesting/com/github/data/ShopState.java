@@ -0,0 +1,30 @@
+package unprotesting.com.github.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The counters of a shop that change with every purchase.
+ */
+@AllArgsConstructor
+@Data
+public class ShopState {
+
+    // The number of time periods in the history when the state was saved.
+    private int size;
+    // The buys in the current time period.
+    private int buys;
+    // The sells in the current time period.
+    private int sells;
+    // The price in the current time period.
+    private double price;
+    // The total buys of previous time periods.
+    private int totalBuys;
+    // The total sells of previous time periods.
+    private int totalSells;
+    // The time periods since the price was last updated.
+    private int timeSinceUpdate;
+    // The percentage change of the price over the last day.
+    private double change;
+
+}
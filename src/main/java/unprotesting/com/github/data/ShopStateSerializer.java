@@ -0,0 +1,30 @@
+package unprotesting.com.github.data;
+
+import java.io.IOException;
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
+/**
+ * Serializer for the ShopState class.
+ */
+public class ShopStateSerializer implements Serializer<ShopState> {
+
+    @Override
+    public void serialize(DataOutput2 out, ShopState value) throws IOException {
+        out.packInt(value.getSize());
+        out.packInt(value.getBuys());
+        out.packInt(value.getSells());
+        out.writeDouble(value.getPrice());
+        out.packInt(value.getTotalBuys());
+        out.packInt(value.getTotalSells());
+        out.packInt(value.getTimeSinceUpdate());
+        out.writeDouble(value.getChange());
+    }
+
+    @Override
+    public ShopState deserialize(DataInput2 in, int available) throws IOException {
+        return new ShopState(in.unpackInt(), in.unpackInt(), in.unpackInt(), in.readDouble(),
+                in.unpackInt(), in.unpackInt(), in.unpackInt(), in.readDouble());
+    }
+}
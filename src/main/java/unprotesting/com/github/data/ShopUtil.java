@@ -2,7 +2,10 @@ package unprotesting.com.github.data;
 
 import lombok.experimental.UtilityClass;
 
-import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
 
 import org.bukkit.OfflinePlayer;
 import unprotesting.com.github.config.Config;
@@ -16,6 +19,15 @@ public class ShopUtil {
     private static String[] sectionNameCache;
     private static String[] shopNameCache;
 
+    /**
+     * Whether the database has finished loading, see {@link Database#isReady()}.
+     *
+     * @return Whether shops can be used.
+     */
+    public boolean isReady() {
+        return Database.get() != null && Database.get().isReady();
+    }
+
     public Shop getShop(String item, boolean warn) {
         return Database.get().getShop(item, warn);
     }
@@ -43,7 +55,7 @@ public class ShopUtil {
      * @return Whether the item is in the shop.
      */
     public boolean isInShop(String item) {
-        return Arrays.asList(getSectionNames()).contains(item.toLowerCase());
+        return Database.get().shopCache.containsKey(item.toLowerCase());
     }
 
     /**
@@ -78,6 +90,14 @@ public class ShopUtil {
         return null;
     }
 
+    public boolean isAutosell(OfflinePlayer player, String item) {
+        return Database.get().getAutosell().isEnabled(player.getUniqueId(), item);
+    }
+
+    public boolean toggleAutosell(OfflinePlayer player, String item) {
+        return Database.get().getAutosell().toggle(player.getUniqueId(), item);
+    }
+
     public int getBuysLeft(OfflinePlayer player, String item) {
         return Database.get().getPurchasesLeft(item, player.getUniqueId(), true);
     }
@@ -87,13 +107,96 @@ public class ShopUtil {
     }
 
     public void addTransaction(Transaction transaction) {
-        Database.get().transactions.put(System.currentTimeMillis(), transaction);
+        Database.get().addTransaction(transaction);
+    }
+
+    public void addTransactions(List<Transaction> transactions) {
+        Database.get().addTransactions(transactions);
+    }
+
+    /**
+     * Get the transactions made in a time window, keyed by their {@link TransactionKey}.
+     *
+     * @param from The start of the window in milliseconds, inclusive.
+     * @param to   The end of the window in milliseconds, exclusive.
+     * @return The transactions, oldest first.
+     */
+    public NavigableMap<Long, Transaction> getTransactions(long from, long to) {
+        return Database.get().getTransactions(from, to);
+    }
+
+    /**
+     * Get the transactions of an item made in a time window.
+     *
+     * @param item The name of the item.
+     * @param from The start of the window in milliseconds, inclusive.
+     * @param to   The end of the window in milliseconds, exclusive.
+     * @return The transactions, oldest first.
+     */
+    public NavigableMap<Long, Transaction> getTransactions(String item, long from, long to) {
+        return Database.get().getTransactions(item, from, to);
+    }
+
+    /**
+     * Get the transactions of a player made in a time window.
+     *
+     * @param player The player uuid.
+     * @param from   The start of the window in milliseconds, inclusive.
+     * @param to     The end of the window in milliseconds, exclusive.
+     * @return The transactions, oldest first.
+     */
+    public NavigableMap<Long, Transaction> getTransactions(UUID player, long from, long to) {
+        return Database.get().getTransactions(player, from, to);
+    }
+
+    /**
+     * Get the rolled up price and volume of an item for each time period in a window.
+     * Only transactions older than the transaction retention are rolled up.
+     *
+     * @param item The name of the item.
+     * @param from The start of the window in milliseconds, inclusive.
+     * @param to   The end of the window in milliseconds, exclusive.
+     * @return The map of (item id, time period start) to candle, oldest first.
+     */
+    public NavigableMap<Object[], PriceCandle> getCandles(String item, long from, long to) {
+        return Database.get().getCandles(item, from, to);
+    }
+
+    /**
+     * Get the shops related to an item and how closely their prices move with it.
+     *
+     * @param item The name of the item.
+     * @return The map of related shop name to correlation, which is NaN until
+     *         there is enough history.
+     */
+    public Map<String, Double> getRelated(String item) {
+        return Database.get().getRelations().getRelated(item);
+    }
+
+    /**
+     * Get how closely the prices of two related items move together.
+     *
+     * @param item  The name of the first item.
+     * @param other The name of the second item.
+     * @return The correlation between -1 and 1, or NaN if the items are not related.
+     */
+    public double getCorrelation(String item, String other) {
+        return Database.get().getRelations().getCorrelation(item, other);
     }
 
     public boolean removeShop(String item) {
+        shopNameCache = null;
         return Database.get().removeShop(item);
     }
 
+    /**
+     * Clear the cached shop and section names, so they are read again from the database.
+     */
+    protected void clearCache() {
+        shopNameCache = null;
+        sectionNameCache = null;
+    }
+
     public void reload() {
         Config.init();
         Database.get().reload();
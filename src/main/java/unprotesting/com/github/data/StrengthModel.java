@@ -0,0 +1,21 @@
+package unprotesting.com.github.data;
+
+/**
+ * The default pricing model, which moves the price by the buy vs sell strength of the
+ * shop, sampled over its history by the {@link StrengthSchedule}, times its volatility.
+ */
+public class StrengthModel implements PricingModel {
+
+    public static final StrengthModel INSTANCE = new StrengthModel();
+
+    @Override
+    public String getName() {
+        return "strength";
+    }
+
+    @Override
+    public double signal(Shop shop) {
+        return shop.strength();
+    }
+
+}
@@ -0,0 +1,114 @@
+package unprotesting.com.github.data;
+
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * The time periods sampled when calculating the buy vs sell strength of a shop.
+ *
+ * <p>For x = 0, 1, 2, ... the time period round(M * x^Z + 0.5) back from the latest
+ * is sampled, so recent time periods are sampled more than once. The schedule is worked
+ * out once as a list of offsets and how often each is sampled, and shared by every shop.
+ */
+public class StrengthSchedule {
+
+    // The schedule covering the longest history seen so far.
+    private static volatile StrengthSchedule current = build(0.05, 1.75, 64, 1);
+
+    // The M and Z constants the offsets were calculated with.
+    private final double m;
+    private final double z;
+    // Increased whenever M or Z change, so shops know to add up their strength again.
+    @Getter
+    protected final int generation;
+    // The offsets back from the latest time period, where 1 is the latest, ascending.
+    protected final int[] offsets;
+    // The number of times each offset is sampled.
+    protected final int[] weights;
+    // The longest history this schedule covers.
+    protected final int limit;
+
+    private StrengthSchedule(double m, double z, int generation, int[] offsets, int[] weights,
+            int limit) {
+        this.m = m;
+        this.z = z;
+        this.generation = generation;
+        this.offsets = offsets;
+        this.weights = weights;
+        this.limit = limit;
+    }
+
+    /**
+     * Get a schedule covering a history.
+     *
+     * @param size The number of time periods in the history.
+     * @return The schedule.
+     */
+    protected static StrengthSchedule get(int size) {
+        StrengthSchedule schedule = current;
+        if (schedule.limit >= size) {
+            return schedule;
+        }
+
+        synchronized (StrengthSchedule.class) {
+            schedule = current;
+            if (schedule.limit < size) {
+                current = build(schedule.m, schedule.z, Math.max(size, schedule.limit * 2),
+                        schedule.generation);
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Set the M and Z constants, if they changed.
+     *
+     * @param m The multiplier of the sampling curve, greater than 0.
+     * @param z The exponent of the sampling curve, greater than 0.
+     */
+    protected static synchronized void configure(double m, double z) {
+        StrengthSchedule schedule = current;
+        if (schedule.m == m && schedule.z == z) {
+            return;
+        }
+
+        current = build(m, z, schedule.limit, schedule.generation + 1);
+    }
+
+    /**
+     * Get the number of times the latest time period is sampled.
+     *
+     * @return The weight of the latest time period.
+     */
+    protected int getLatestWeight() {
+        return offsets[0] == 1 ? weights[0] : 0;
+    }
+
+    private static StrengthSchedule build(double m, double z, int limit, int generation) {
+        int[] offsets = new int[16];
+        int[] weights = new int[16];
+        int count = 0;
+        int x = 0;
+        int y = 1;
+
+        while (y <= limit) {
+            if (count > 0 && offsets[count - 1] == y) {
+                weights[count - 1]++;
+            } else {
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                    weights = Arrays.copyOf(weights, count * 2);
+                }
+                offsets[count] = y;
+                weights[count] = 1;
+                count++;
+            }
+            x++;
+            y = (int) Math.round(m * Math.pow(x, z) + 0.5);
+        }
+
+        return new StrengthSchedule(m, z, generation,
+                Arrays.copyOf(offsets, count), Arrays.copyOf(weights, count), limit);
+    }
+
+}
@@ -0,0 +1,60 @@
+package unprotesting.com.github.data;
+
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Utility class for the keys of the transaction log.
+ *
+ * <p>A key packs the time of a transaction in milliseconds into its upper bits and a
+ * sequence number into its lower bits. Keys therefore sort by time, and transactions
+ * made in the same millisecond get different keys instead of overwriting each other.
+ */
+@UtilityClass
+public class TransactionKey {
+
+    // The number of low bits used for the sequence number.
+    private static final int SEQUENCE_BITS = 16;
+    // The last key that was handed out.
+    private static final AtomicLong last = new AtomicLong();
+
+    /**
+     * Get a new key for a transaction made now.
+     *
+     * @return A key greater than every key handed out before.
+     */
+    public long next() {
+        long first = fromTime(System.currentTimeMillis());
+        return last.updateAndGet(previous -> Math.max(previous + 1, first));
+    }
+
+    /**
+     * Get the first possible key for a time.
+     *
+     * @param time The time in milliseconds.
+     * @return The key.
+     */
+    public long fromTime(long time) {
+        return time << SEQUENCE_BITS;
+    }
+
+    /**
+     * Get the time a key was created at.
+     *
+     * @param key The key.
+     * @return The time in milliseconds.
+     */
+    public long getTime(long key) {
+        return key >>> SEQUENCE_BITS;
+    }
+
+    /**
+     * Make sure new keys are greater than a key loaded from the database.
+     *
+     * @param key The greatest existing key.
+     */
+    protected void resumeAfter(long key) {
+        last.accumulateAndGet(key, Math::max);
+    }
+
+}
@@ -3,27 +3,87 @@ package unprotesting.com.github.data;
 import java.io.IOException;
 import org.mapdb.DataInput2;
 import org.mapdb.DataOutput2;
-import org.mapdb.Serializer;
+import org.mapdb.serializer.GroupSerializerObjectArray;
 import unprotesting.com.github.data.Transaction.TransactionType;
 
 /**
  * Serializer for the Transaction class.
+ *
+ * <p>Transactions are written as a format byte, the price, the amount as a varint,
+ * the player, the item id from the {@link ItemDictionary} as a varint and the type as
+ * a single byte, which is around 30 bytes per transaction.
+ *
+ * <p>The item must be given an id before the transaction is written, as the serializer
+ * only looks ids up and never writes to the dictionary while MapDB is writing. Item
+ * names are kept lower case in the dictionary, like shop names, so transactions written
+ * in the compact format are read back with a lower case item name.
  */
-public class TransactionSerializer implements Serializer<Transaction> {
+public class TransactionSerializer extends GroupSerializerObjectArray<Transaction> {
+
+    // The first byte of a compact transaction. Older versions started with the price,
+    // and no positive price starts with this byte.
+    private static final byte COMPACT = (byte) 0xFF;
+    // The transaction types, indexed by the byte they are written as.
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    // The dictionary used to write item names as ids.
+    private final ItemDictionary items;
+
+    /**
+     * Constructor for the transaction serializer.
+     *
+     * @param items The dictionary used to write item names as ids.
+     */
+    public TransactionSerializer(ItemDictionary items) {
+        this.items = items;
+    }
 
     @Override
     public void serialize(DataOutput2 out, Transaction value) throws IOException {
+        out.writeByte(COMPACT);
         out.writeDouble(value.getPrice());
-        out.writeInt(value.getAmount());
+        out.packInt(value.getAmount());
         UUID.serialize(out, value.getPlayer());
-        out.writeUTF(value.getItem());
-        out.writeUTF(value.getPosition().toString());
+        int item = items.findId(value.getItem());
+        if (item < 0) {
+            throw new IllegalStateException("No item id for " + value.getItem()
+                    + ", the item must be added to the dictionary first.");
+        }
+        out.packInt(item);
+        out.writeByte(value.getPosition().ordinal());
     }
 
     @Override
     public Transaction deserialize(DataInput2 in, int available) throws IOException {
+        byte format = in.readByte();
+
+        if (format != COMPACT) {
+            return deserializeLegacy(in, available, format);
+        }
+
         Transaction.TransactionBuilder builder = new Transaction.TransactionBuilder();
         builder.price(in.readDouble());
+        builder.amount(in.unpackInt());
+        builder.player(UUID.deserialize(in, available));
+        builder.item(items.getName(in.unpackInt()));
+        builder.position(TYPES[in.readByte()]);
+        return builder.build();
+    }
+
+    /**
+     * Read a transaction written by an older version, which starts with the price.
+     *
+     * @param first The first byte of the price, which was already read.
+     */
+    private Transaction deserializeLegacy(DataInput2 in, int available, byte first)
+            throws IOException {
+        long bits = first & 0xFF;
+        for (int i = 0; i < Long.BYTES - 1; i++) {
+            bits = bits << 8 | in.readUnsignedByte();
+        }
+
+        Transaction.TransactionBuilder builder = new Transaction.TransactionBuilder();
+        builder.price(Double.longBitsToDouble(bits));
         builder.amount(in.readInt());
         builder.player(UUID.deserialize(in, available));
         builder.item(in.readUTF());
@@ -1,14 +1,16 @@
 package unprotesting.com.github.events;
 
-import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import org.bukkit.Bukkit;
+import org.bukkit.Material;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
 import org.jetbrains.annotations.NotNull;
 import unprotesting.com.github.config.Config;
 import unprotesting.com.github.data.CollectFirst;
@@ -16,120 +18,128 @@ import unprotesting.com.github.data.CollectFirst.CollectFirstSetting;
 import unprotesting.com.github.data.Shop;
 import unprotesting.com.github.data.ShopUtil;
 import unprotesting.com.github.util.Format;
+import unprotesting.com.github.util.MessageTemplate;
 
 /**
- * The event tp check players inventories for items they have auto-sold and
+ * The event to check players inventories for items they have auto-sold and
  * to update the collect first settings.
+ *
+ * <p>Changes to inventories are checked as they happen by {@link AutosellListener},
+ * this event is a slow sweep of every inventory to catch anything it missed.
  */
 public class AutoTuneInventoryCheckEvent extends AutoTuneEvent {
 
-    public static Map<UUID, List<String>> autosellItemMaxReached = new HashMap<>();
+    // The items each player has been told they ran out of sells for this time period.
+    public static volatile Map<UUID, Set<String>> autosellItemMaxReached = new HashMap<>();
 
     /**
      * Checks all online players inventories for autosell items
-     * and to update collect first settings.
+     * and to update collect first settings. Must be run on the main thread.
      *
      * @param isAsync Whether to run this in an async task.
      */
     public AutoTuneInventoryCheckEvent(boolean isAsync) {
         super(isAsync);
+
+        if (!ShopUtil.isReady()) {
+            return;
+        }
+
         for (Player player : Bukkit.getOnlinePlayers()) {
             checkInventory(player);
         }
     }
 
-    private void checkInventory(Player player) {
-        UUID uuid = player.getUniqueId();
-        for (ItemStack item : player.getInventory().getContents()) {
-
-            if (item == null) {
-                continue;
-            }
-
-            runUpdate(item, player);
-
-            if (item.getEnchantments().isEmpty()) {
-                continue;
-            }
-
-            for (Enchantment enchantment : item.getEnchantments().keySet()) {
-                String name = enchantment.getKey().getKey().toLowerCase();
-
-                if (!ShopUtil.isInShop(name)) {
-                    continue;
-                }
-
-                Shop shop = getShop(name);
-                updateCf(name, shop, uuid);
-            }
+    /**
+     * Get the names of the item and of its enchantments, which may be shops.
+     *
+     * @param item The item.
+     * @return The names, empty for air.
+     */
+    protected static Set<String> getNames(ItemStack item) {
+        Set<String> names = new HashSet<>();
 
+        if (item == null || item.getType().isAir()) {
+            return names;
         }
-    }
 
-    private void runUpdate(ItemStack item, @NotNull Player player) {
+        names.add(item.getType().toString().toLowerCase());
+        for (Enchantment enchantment : item.getEnchantments().keySet()) {
+            names.add(enchantment.getKey().getKey().toLowerCase());
+        }
 
-        String name = item.getType().toString().toLowerCase();
+        return names;
+    }
 
+    /**
+     * Update the collect first setting of a shop for a player who has the item,
+     * and auto-sell every stack of it in their inventory if they enabled autosell.
+     * Must be run on the main thread.
+     *
+     * @param player The player.
+     * @param name   The name of the item or enchantment.
+     */
+    protected static void checkItem(@NotNull Player player, @NotNull String name) {
         if (!ShopUtil.isInShop(name)) {
             return;
         }
 
-        Shop shop = getShop(name);
-        
+        Shop shop = ShopUtil.getShop(name, true);
         UUID uuid = player.getUniqueId();
         updateCf(name, shop, uuid);
-        boolean autosellEnabled = Config.get().getAutosell().getBoolean(uuid + "." + name, false);
+        Material material = Material.matchMaterial(name);
 
-        if (!autosellEnabled) {
+        if (material == null || !ShopUtil.isAutosell(player, name)) {
             return;
         }
 
-        if (ShopUtil.getSellsLeft(player, name) - item.getAmount() < 0) {
-            if (!autosellItemMaxReached.containsKey(uuid)) {
-                List<String> list = autosellItemMaxReached.get(uuid);
-                if (list == null) {
-                    list = Arrays.asList(name);
-                    autosellItemMaxReached.put(uuid, list);
-                } else {
-                    list.add(name);
-                }
-            } else {
-                List<String> list = autosellItemMaxReached.get(uuid);
-                if (!list.contains(name)) {
-                    list.add(name);
-                    Format.sendMessage(player, Config.get().getRunOutOfSells());
+        PlayerInventory inventory = player.getInventory();
+        ItemStack[] contents = inventory.getStorageContents();
+        int sellsLeft = ShopUtil.getSellsLeft(player, name);
+        int amount = 0;
+
+        for (int i = 0; i < contents.length; i++) {
+            ItemStack item = contents[i];
+
+            if (item == null || item.getType() != material) {
+                continue;
+            }
+
+            if (amount + item.getAmount() > sellsLeft) {
+                Set<String> reached = autosellItemMaxReached.computeIfAbsent(
+                        uuid, key -> new HashSet<>());
+                if (reached.add(name)) {
+                    Format.sendMessage(player, Config.get().getRunOutOfSells(),
+                            MessageTemplate.slots().text("item", name));
                 }
+                break;
             }
-            return;
-        }
 
-        int amount = item.getAmount();
-        HashMap<Integer, ItemStack> map = player.getInventory().removeItemAnySlot();
+            amount += item.getAmount();
+            inventory.setItem(i, null);
+        }
 
-        if (!map.isEmpty()) {
-            amount = amount - map.get(0).getAmount();
+        if (amount == 0) {
+            return;
         }
 
         shop.addAutosell(uuid, amount);
         shop.addSells(uuid, amount);
-
+        ShopUtil.putShop(name, shop);
     }
 
-    private Shop getShop(String shopName) {
-        if (shopName == null) {
-            return null;
+    private void checkInventory(Player player) {
+        Set<String> names = new HashSet<>();
+        for (ItemStack item : player.getInventory().getContents()) {
+            names.addAll(getNames(item));
         }
 
-        Shop shop = ShopUtil.getShop(shopName, true);
-
-        if (shop == null) {
-            return null;
+        for (String name : names) {
+            checkItem(player, name);
         }
-
-        return shop;
     }
 
-    private void updateCf(@NotNull String name, @NotNull Shop shop, @NotNull UUID uuid) {
+    private static void updateCf(@NotNull String name, @NotNull Shop shop, @NotNull UUID uuid) {
 
         boolean update = false;
         CollectFirst cf = shop.getSetting();
@@ -141,9 +151,11 @@ public class AutoTuneInventoryCheckEvent extends AutoTuneEvent {
                 update = true;
             }
         } else if (cf.getSetting().equals(CollectFirstSetting.PLAYER)) {
-            cf.addPlayer(uuid);
-            shop.setSetting(cf);
-            update = true;
+            // Players who already collected the item are the common case, nothing to save.
+            if (cf.addPlayer(uuid)) {
+                shop.setSetting(cf);
+                update = true;
+            }
         }
 
         if (update) {
@@ -0,0 +1,86 @@
+package unprotesting.com.github.events;
+
+import io.papermc.paper.event.player.PlayerInventorySlotChangeEvent;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.inventory.CraftItemEvent;
+import org.bukkit.inventory.ItemStack;
+import unprotesting.com.github.AutoTune;
+import unprotesting.com.github.data.ShopUtil;
+
+/**
+ * The listener that checks items as they enter a player's inventory, for autosell
+ * and collect first settings.
+ *
+ * <p>Changed items are queued and checked together on the next tick, so the work
+ * done each tick depends on how many items changed, not on how many players are online.
+ */
+public class AutosellListener implements Listener {
+
+    // The names of the items that changed in each player's inventory since the last check.
+    private final Map<UUID, Set<String>> pending = new HashMap<>();
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPickup(EntityPickupItemEvent event) {
+        if (event.getEntity() instanceof Player) {
+            queue((Player) event.getEntity(), event.getItem().getItemStack());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onSlotChange(PlayerInventorySlotChangeEvent event) {
+        queue(event.getPlayer(), event.getNewItemStack());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onCraft(CraftItemEvent event) {
+        if (event.getWhoClicked() instanceof Player) {
+            queue((Player) event.getWhoClicked(), event.getRecipe().getResult());
+        }
+    }
+
+    private void queue(Player player, ItemStack item) {
+        if (!ShopUtil.isReady()) {
+            return;
+        }
+
+        Set<String> names = AutoTuneInventoryCheckEvent.getNames(item);
+
+        if (names.isEmpty()) {
+            return;
+        }
+
+        if (pending.isEmpty()) {
+            Bukkit.getScheduler().runTask(AutoTune.getInstance(), this::check);
+        }
+
+        pending.computeIfAbsent(player.getUniqueId(), uuid -> new HashSet<>()).addAll(names);
+    }
+
+    private void check() {
+        Map<UUID, Set<String>> changed = new HashMap<>(pending);
+        pending.clear();
+
+        for (Map.Entry<UUID, Set<String>> entry : changed.entrySet()) {
+            Player player = Bukkit.getPlayer(entry.getKey());
+
+            if (player == null) {
+                continue;
+            }
+
+            for (String name : entry.getValue()) {
+                AutoTuneInventoryCheckEvent.checkItem(player, name);
+            }
+        }
+    }
+
+}
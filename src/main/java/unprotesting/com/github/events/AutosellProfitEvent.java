@@ -1,10 +1,11 @@
 package unprotesting.com.github.events;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
-import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
-import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import unprotesting.com.github.config.Config;
@@ -15,6 +16,8 @@ import unprotesting.com.github.data.Transaction;
 import unprotesting.com.github.data.Transaction.TransactionType;
 import unprotesting.com.github.util.EconomyUtil;
 import unprotesting.com.github.util.Format;
+import unprotesting.com.github.util.MessageTemplate;
+import unprotesting.com.github.util.MessageTemplate.Slots;
 
 /**
  * The event for sending a player their money from items they have auto-sold.
@@ -28,18 +31,30 @@ public class AutosellProfitEvent extends AutoTuneEvent {
      */
     public AutosellProfitEvent(boolean isAsync) {
         super(isAsync);
+
+        if (!ShopUtil.isReady()) {
+            return;
+        }
+
         deposit();
     }
 
     private void deposit() {
+        long start = System.currentTimeMillis();
+        Map<UUID, Double> totals = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>();
+        double gdp = 0;
+        double loss = 0;
+
         for (String s : ShopUtil.getShopNames()) {
             Shop shop = ShopUtil.getShop(s, true);
-            Map<UUID, Integer> autosell = shop.getAutosell();
+            Map<UUID, Integer> autosell = shop.drainAutosell();
 
             if (autosell.isEmpty()) {
                 continue;
             }
 
+            double price = shop.getSellPrice();
             for (Map.Entry<UUID, Integer> entry : autosell.entrySet()) {
 
                 if (entry.getValue() <= 0) {
@@ -47,31 +62,42 @@ public class AutosellProfitEvent extends AutoTuneEvent {
                 }
 
                 int amount = entry.getValue();
-                double price = shop.getSellPrice();
                 double total = price * amount;
-                OfflinePlayer player = Bukkit.getOfflinePlayer(entry.getKey());
-                EconomyUtil.getEconomy().depositPlayer(player, total);
-                ShopUtil.addTransaction(new Transaction(
+                totals.merge(entry.getKey(), total, Double::sum);
+                transactions.add(new Transaction(
                         price, amount, entry.getKey(), s, TransactionType.SELL));
-                EconomyDataUtil.increaseEconomyData("GDP", total / 2);
-                double loss = shop.getPrice() * amount - total;
-                EconomyDataUtil.increaseEconomyData("LOSS", loss);
-                String balance = Format.currency(EconomyUtil.getEconomy().getBalance(player));
+                gdp += total / 2;
+                loss += shop.getPrice() * amount - total;
+            }
 
-                TagResolver resolver = TagResolver.resolver(
-                        Placeholder.parsed("total", Format.currency(total)),
-                        Placeholder.parsed("balance", balance));
+            ShopUtil.putShop(s, shop);
+        }
 
-                if (player.isOnline()) {
-                    Format.sendMessage(Objects.requireNonNull(player.getPlayer()),
-                            Config.get().getAutosellProfit(), resolver);
-                }
+        if (totals.isEmpty()) {
+            return;
+        }
 
-            }
+        // One deposit and one message per player, however many items they sold.
+        for (Map.Entry<UUID, Double> entry : totals.entrySet()) {
+            OfflinePlayer player = Bukkit.getOfflinePlayer(entry.getKey());
+            EconomyUtil.deposit(player, entry.getValue());
 
-            shop.clearAutosell();
-            ShopUtil.putShop(s, shop);
+            if (player.isOnline()) {
+                String balance = Format.currency(EconomyUtil.getEconomy().getBalance(player));
+                Slots resolver = MessageTemplate.slots()
+                        .parsed("total", Format.currency(entry.getValue()))
+                        .parsed("balance", balance);
+                Format.sendMessage(Objects.requireNonNull(player.getPlayer()),
+                        Config.get().getAutosellProfit(), resolver);
+            }
         }
+
+        ShopUtil.addTransactions(transactions);
+        EconomyDataUtil.increaseEconomyData("GDP", gdp);
+        EconomyDataUtil.increaseEconomyData("LOSS", loss);
+        Format.getLog().fine("Paid autosell to " + totals.size() + " players for "
+                + transactions.size() + " sales in "
+                + (System.currentTimeMillis() - start) + "ms.");
     }
 
 }
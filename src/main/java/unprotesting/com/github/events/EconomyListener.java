@@ -0,0 +1,27 @@
+package unprotesting.com.github.events;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import unprotesting.com.github.data.EconomyDataUtil;
+import unprotesting.com.github.data.ShopUtil;
+import unprotesting.com.github.util.EconomyUtil;
+
+/**
+ * The listener that adds new players to the population and balance of the economy.
+ */
+public class EconomyListener implements Listener {
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        if (event.getPlayer().hasPlayedBefore() || !ShopUtil.isReady()) {
+            return;
+        }
+
+        EconomyDataUtil.increaseEconomyData("POPULATION", 1);
+        EconomyDataUtil.increaseEconomyData("BALANCE",
+                EconomyUtil.getEconomy().getBalance(event.getPlayer()));
+    }
+
+}
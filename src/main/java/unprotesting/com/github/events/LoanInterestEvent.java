@@ -1,8 +1,7 @@
 package unprotesting.com.github.events;
 
-import java.util.Map;
 import unprotesting.com.github.data.Database;
-import unprotesting.com.github.data.Loan;
+import unprotesting.com.github.data.ShopUtil;
 
 /**
  * The event for updating the value of a loan.
@@ -16,6 +15,11 @@ public class LoanInterestEvent extends AutoTuneEvent {
      */
     public LoanInterestEvent(boolean isAsync) {
         super(isAsync);
+
+        if (!ShopUtil.isReady()) {
+            return;
+        }
+
         updateLoans();
     }
 
@@ -23,12 +27,7 @@ public class LoanInterestEvent extends AutoTuneEvent {
      * Updates the loan data.
      */
     public void updateLoans() {
-        Database database = Database.get();
-        for (Map.Entry<Long, Loan> entry : Database.get().getLoans().entrySet()) {
-            Loan loan = entry.getValue();
-            loan.update();
-            database.updateLoan(entry.getKey(), loan);
-        }
+        Database.get().getLoans().accrueInterest();
     }
 
 }
@@ -0,0 +1,47 @@
+package unprotesting.com.github.events;
+
+import unprotesting.com.github.config.Config;
+import unprotesting.com.github.data.Database;
+import unprotesting.com.github.data.ShopUtil;
+import unprotesting.com.github.util.Format;
+
+/**
+ * The event to roll up and delete transactions older than the transaction retention.
+ */
+public class RetentionEvent extends AutoTuneEvent {
+
+    /**
+     * Rolls up transactions older than the transaction retention and
+     * compacts the database once enough of them have been deleted and
+     * no players are online.
+     *
+     * @param isAsync Whether to run this in an async task.
+     * @param empty   Whether no players were online, checked on the main thread.
+     */
+    public RetentionEvent(boolean isAsync, boolean empty) {
+        super(isAsync);
+
+        if (!ShopUtil.isReady()) {
+            return;
+        }
+
+        int days = Config.get().getTransactionRetention();
+
+        if (days < 0) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        long cutoff = start - days * 86400000L;
+        int count = Database.get().rollupTransactions(cutoff);
+
+        if (count > 0) {
+            Format.getLog().config("Rolled up " + count + " transactions older than " + days
+                    + " days in " + (System.currentTimeMillis() - start) + "ms.");
+        }
+
+        // Also retried when nothing was rolled up, as it waits for the server to be empty.
+        Database.get().compactIfNeeded(empty);
+    }
+
+}
@@ -6,6 +6,7 @@ import org.bukkit.Bukkit;
 import unprotesting.com.github.config.Config;
 import unprotesting.com.github.config.CsvHandler;
 import unprotesting.com.github.data.Database;
+import unprotesting.com.github.data.PriceEngine;
 import unprotesting.com.github.data.Shop;
 import unprotesting.com.github.data.ShopUtil;
 import unprotesting.com.github.util.AutoTuneLogger;
@@ -23,6 +24,11 @@ public class TimePeriodEvent extends AutoTuneEvent {
      */
     public TimePeriodEvent(boolean isAsync) {
         super(isAsync);
+
+        if (!ShopUtil.isReady()) {
+            return;
+        }
+
         Config config = Config.get();
         AutoTuneLogger logger = Format.getLog();
 
@@ -32,34 +38,20 @@ public class TimePeriodEvent extends AutoTuneEvent {
             logger.config("Not enough players to start price update. ("
                     + players + " < " + config.getMinimumPlayers() + ")");
             resetRecentPurchases();
+            Database.get().getEconomy().rollover();
             return;
         }
 
         logger.config("Price update started as there are " + players + " players online.");
         updatePrices();
         Database.get().updateChanges();
+        Database.get().updateRelations();
+        Database.get().getEconomy().rollover();
         CsvHandler.writePriceData();
-        // Database.get().updateRelations();
     }
 
     private void updatePrices() {
-        AutoTuneLogger logger = Format.getLog();
-        for (String s : ShopUtil.getShopNames()) {
-            Shop shop = ShopUtil.getShop(s, true);
-            double initialPrice = shop.getPrice();
-            double strength = shop.strength();
-            double newPrice = initialPrice + initialPrice * strength * shop.getVolatility() * 0.01;
-            shop.timePeriod(newPrice);
-            ShopUtil.putShop(s, shop);
-
-            if (newPrice != initialPrice) {
-                logger.config("Price of " + s + " changed from "
-                        + Format.currency(initialPrice) + " to " + Format.currency(newPrice));
-                logger.finer("Changed by " + Format.currency(newPrice - initialPrice));
-                logger.finest("Volatility: " + shop.getVolatility());
-                logger.finest("Strength: " + strength);
-            }
-        }
+        PriceEngine.updatePrices();
         AutoTuneInventoryCheckEvent.autosellItemMaxReached = new HashMap<>();
     }
 
@@ -18,7 +18,11 @@ public class AutoTuneLogger {
     private Level level;
 
     public AutoTuneLogger(@NotNull JavaPlugin plugin) {
-        this.logger = plugin.getLogger();
+        this(plugin.getLogger());
+    }
+
+    public AutoTuneLogger(@NotNull Logger logger) {
+        this.logger = logger;
         this.level = Level.INFO;
     }
 
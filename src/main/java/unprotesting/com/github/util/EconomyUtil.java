@@ -3,9 +3,13 @@ package unprotesting.com.github.util;
 import lombok.Getter;
 import lombok.experimental.UtilityClass;
 import net.milkbowl.vault.economy.Economy;
+import net.milkbowl.vault.economy.EconomyResponse;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.Server;
 import org.bukkit.plugin.RegisteredServiceProvider;
 import org.jetbrains.annotations.NotNull;
+import unprotesting.com.github.data.EconomyDataUtil;
+import unprotesting.com.github.data.EconomyReconciler;
 
 /**
  * The class for managing the economy.
@@ -32,4 +36,36 @@ public class EconomyUtil {
         economy = rsp.getProvider();
     }
 
+    /**
+     * Deposit money to a player and add it to the total balance of the economy.
+     *
+     * @param player The player.
+     * @param amount The amount to deposit.
+     * @return The response of the economy.
+     */
+    public EconomyResponse deposit(@NotNull OfflinePlayer player, double amount) {
+        EconomyResponse response = economy.depositPlayer(player, amount);
+        if (response.transactionSuccess()) {
+            EconomyDataUtil.increaseEconomyData("BALANCE", response.amount);
+            EconomyReconciler.track(player, response.amount);
+        }
+        return response;
+    }
+
+    /**
+     * Withdraw money from a player and take it from the total balance of the economy.
+     *
+     * @param player The player.
+     * @param amount The amount to withdraw.
+     * @return The response of the economy.
+     */
+    public EconomyResponse withdraw(@NotNull OfflinePlayer player, double amount) {
+        EconomyResponse response = economy.withdrawPlayer(player, amount);
+        if (response.transactionSuccess()) {
+            EconomyDataUtil.increaseEconomyData("BALANCE", -response.amount);
+            EconomyReconciler.track(player, -response.amount);
+        }
+        return response;
+    }
+
 }
@@ -4,6 +4,7 @@ import java.text.DateFormat;
 import java.text.NumberFormat;
 import java.util.Locale;
 import java.util.logging.Level;
+import java.util.logging.Logger;
 import lombok.Getter;
 import lombok.experimental.UtilityClass;
 import net.kyori.adventure.text.Component;
@@ -13,6 +14,7 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import unprotesting.com.github.AutoTune;
+import unprotesting.com.github.util.MessageTemplate.Slots;
 
 /**
  * The class for formatting messages.
@@ -59,7 +61,17 @@ public class Format {
      * Loads the logger.
      */
     public static void loadLogger(@NotNull Level level) {
-        log = new AutoTuneLogger(AutoTune.getInstance());
+        loadLogger(AutoTune.getInstance().getLogger(), level);
+    }
+
+    /**
+     * Loads the logger, writing to a given logger.
+     *
+     * @param logger the logger to write to
+     * @param level  the level to log at
+     */
+    public static void loadLogger(@NotNull Logger logger, @NotNull Level level) {
+        log = new AutoTuneLogger(logger);
         log.setLevel(level);
         log.info("Logger loaded with level " + log.getLevel().toString());
     }
@@ -133,7 +145,7 @@ public class Format {
      * @param message the message to send
      */
     public static void sendMessage(@NotNull Player player, @NotNull String message) {
-        player.sendMessage(miniMessage.deserialize(message));
+        player.sendMessage(getComponent(message));
     }
 
     /**
@@ -156,7 +168,19 @@ public class Format {
      * @param message The message to send
      */
     public static void sendMessage(@NotNull CommandSender sender, @NotNull String message) {
-        sender.sendMessage(miniMessage.deserialize(message));
+        sender.sendMessage(getComponent(message));
+    }
+
+    /**
+     * Send a message to a CommandSender by filling the slots of its template.
+     *
+     * @param sender  The command sender
+     * @param message The message to send
+     * @param slots   The slot values
+     */
+    public static void sendMessage(@NotNull CommandSender sender, @NotNull String message,
+            @NotNull Slots slots) {
+        sender.sendMessage(getComponent(message, slots));
     }
 
     /**
@@ -166,11 +190,20 @@ public class Format {
         return miniMessage.deserialize(message, resolver);
     }
 
+    /**
+     * Get the component of a message by filling the slots of its template.
+     * Messages from messages.yml are not parsed again, see {@link MessageTemplate}.
+     */
+    public static Component getComponent(@NotNull String message, @NotNull Slots slots) {
+        return MessageTemplate.get(message).render(slots);
+    }
+
     /**
      * Get the component of a message using the MiniMessage API.
      */
     public static Component getComponent(@NotNull String message) {
-        return miniMessage.deserialize(message);
+        MessageTemplate template = MessageTemplate.find(message);
+        return template != null ? template.render() : miniMessage.deserialize(message);
     }
 
 }
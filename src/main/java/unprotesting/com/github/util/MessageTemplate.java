@@ -0,0 +1,276 @@
+package unprotesting.com.github.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.ComponentLike;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.TextReplacementConfig;
+import net.kyori.adventure.text.minimessage.Context;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.Tag;
+import net.kyori.adventure.text.minimessage.tag.resolver.ArgumentQueue;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A MiniMessage message parsed once into a component, with slots for its placeholders.
+ *
+ * <p>Every tag that is not a standard MiniMessage tag, like {@code <price>}, is parsed
+ * as a slot. Rendering fills the slots with the given values in a single pass over the
+ * component, without parsing the message again. Slots without a value are shown as the
+ * tag, like MiniMessage does for unknown tags. The messages in messages.yml are compiled
+ * when the config is loaded, see {@link #compileAll(ConfigurationSection)}. Other
+ * messages, like lore from config.yml, are compiled when first rendered and kept until
+ * the next reload, up to a limit.
+ */
+public class MessageTemplate {
+
+    // The character around the name of a slot in the compiled component.
+    private static final char MARKER = '\u2063';
+    // Matches a slot in the compiled component.
+    private static final Pattern SLOT = Pattern.compile(MARKER + "([^" + MARKER + "]+)" + MARKER);
+    // Parses every tag that is not a standard tag as a slot.
+    private static final TagResolver SLOTS = new TagResolver() {
+        @Override
+        public @Nullable Tag resolve(@NotNull String name, @NotNull ArgumentQueue arguments,
+                @NotNull Context ctx) {
+            return Tag.selfClosingInserting(Component.text(MARKER + name + MARKER));
+        }
+
+        @Override
+        public boolean has(@NotNull String name) {
+            return !TagResolver.standard().has(name);
+        }
+    };
+
+    // The number of messages not from messages.yml whose templates are kept.
+    private static final int CACHE_SIZE = 512;
+
+    // The templates of the configured messages.
+    private static final Map<String, MessageTemplate> compiled = new ConcurrentHashMap<>();
+    // The templates of other messages, compiled when first rendered.
+    private static final Map<String, MessageTemplate> cached = new ConcurrentHashMap<>();
+
+    // The parsed message.
+    private final Component component;
+    // The names of the slots in the message.
+    private final Set<String> slots;
+
+    private MessageTemplate(String message) {
+        this.component = MiniMessage.miniMessage().deserialize(message, SLOTS);
+        Set<String> names = new LinkedHashSet<>();
+        Matcher matcher = SLOT.matcher(plainText(component));
+        while (matcher.find()) {
+            names.add(matcher.group(1));
+        }
+        this.slots = Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Compile every message in messages.yml, replacing the templates compiled before.
+     *
+     * @param messages The messages config.
+     * @return The number of messages compiled.
+     */
+    public static int compileAll(@NotNull ConfigurationSection messages) {
+        compiled.clear();
+        cached.clear();
+
+        for (String key : messages.getKeys(true)) {
+            if (messages.isString(key)) {
+                compile(messages.getString(key));
+            } else if (messages.isList(key)) {
+                for (String message : messages.getStringList(key)) {
+                    compile(message);
+                }
+            }
+        }
+
+        return compiled.size();
+    }
+
+    /**
+     * Get the template of a configured message.
+     *
+     * @param message The message.
+     * @return The template, or null if the message is not from messages.yml.
+     */
+    public static @Nullable MessageTemplate find(@NotNull String message) {
+        return compiled.get(message);
+    }
+
+    /**
+     * Get the template of a message, compiling it if it is not a configured message.
+     * Once the cache is full, other messages are compiled on every call.
+     *
+     * @param message The message.
+     * @return The template.
+     */
+    public static @NotNull MessageTemplate get(@NotNull String message) {
+        MessageTemplate template = compiled.get(message);
+        if (template != null) {
+            return template;
+        }
+
+        template = cached.get(message);
+        if (template == null) {
+            template = new MessageTemplate(message);
+            if (cached.size() < CACHE_SIZE) {
+                cached.putIfAbsent(message, template);
+            }
+        }
+
+        return template;
+    }
+
+    /**
+     * Create an empty set of slot values.
+     *
+     * @return The slot values.
+     */
+    public static Slots slots() {
+        return new Slots();
+    }
+
+    /**
+     * Get the names of the slots in the message.
+     *
+     * @return The slot names, in order.
+     */
+    public Set<String> getSlots() {
+        return slots;
+    }
+
+    /**
+     * Render the message with no slot values.
+     *
+     * @return The component.
+     */
+    public Component render() {
+        return slots.isEmpty() ? component : fill(component, null, true);
+    }
+
+    /**
+     * Render the message.
+     *
+     * @param values The slot values.
+     * @return The component.
+     */
+    public Component render(@NotNull Slots values) {
+        return slots.isEmpty() ? component : fill(component, values, true);
+    }
+
+    /**
+     * Fill some of the slots, leaving the others to be filled later with
+     * {@link #complete(Component, Slots)}.
+     *
+     * @param values The slot values.
+     * @return The component with the remaining slots.
+     */
+    public Component fill(@NotNull Slots values) {
+        return slots.isEmpty() ? component : fill(component, values, false);
+    }
+
+    /**
+     * Fill the slots left in a component by {@link #fill(Slots)}.
+     *
+     * @param component The component.
+     * @param values    The slot values.
+     * @return The component.
+     */
+    public static Component complete(@NotNull Component component, @NotNull Slots values) {
+        return fill(component, values, true);
+    }
+
+    private static void compile(String message) {
+        if (message != null) {
+            compiled.computeIfAbsent(message, MessageTemplate::new);
+        }
+    }
+
+    private static Component fill(Component component, Slots values, boolean complete) {
+        return component.replaceText(TextReplacementConfig.builder()
+                .match(SLOT)
+                .replacement((result, builder) -> {
+                    Component value = values == null ? null : values.values.get(result.group(1));
+                    if (value != null) {
+                        return value;
+                    }
+                    return complete ? Component.text("<" + result.group(1) + ">") : builder;
+                })
+                .build());
+    }
+
+    private static String plainText(Component component) {
+        StringBuilder builder = new StringBuilder();
+        appendText(component, builder);
+        return builder.toString();
+    }
+
+    private static void appendText(Component component, StringBuilder builder) {
+        if (component instanceof TextComponent) {
+            builder.append(((TextComponent) component).content());
+        }
+        for (Component child : component.children()) {
+            appendText(child, builder);
+        }
+    }
+
+    /**
+     * The values to fill the slots of a template with.
+     */
+    public static class Slots {
+
+        // The value of each slot.
+        private final Map<String, Component> values = new HashMap<>();
+
+        /**
+         * Set a slot to plain text. Tags in the text are shown as they are, use
+         * {@link #parsed(String, String)} for values that may hold MiniMessage tags.
+         *
+         * @param name  The name of the slot.
+         * @param value The text.
+         * @return These slot values.
+         */
+        public Slots text(@NotNull String name, @NotNull String value) {
+            values.put(name, Component.text(value));
+            return this;
+        }
+
+        /**
+         * Set a slot to a component.
+         *
+         * @param name  The name of the slot.
+         * @param value The component.
+         * @return These slot values.
+         */
+        public Slots component(@NotNull String name, @NotNull ComponentLike value) {
+            values.put(name, value.asComponent());
+            return this;
+        }
+
+        /**
+         * Set a slot to a MiniMessage string, which is only parsed if it has tags.
+         *
+         * @param name  The name of the slot.
+         * @param value The MiniMessage string.
+         * @return These slot values.
+         */
+        public Slots parsed(@NotNull String name, @NotNull String value) {
+            values.put(name, value.indexOf('<') < 0 ? Component.text(value)
+                    : MiniMessage.miniMessage().deserialize(value));
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+package unprotesting.com.github.data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Compares the heap used and the time taken by per player counts kept in
+ * {@link PlayerCounts} and in a {@code HashMap<UUID, Integer>}, as shops kept them before.
+ *
+ * <p>Each run measures one of the two, so objects freed by the other do not skew the
+ * heap figure. After {@code ./gradlew testClasses} run both:
+ *
+ * <pre>
+ * java -cp build/classes/java/main:build/classes/java/test \
+ *     unprotesting.com.github.data.PlayerCountsBenchmark hashmap
+ * java -cp build/classes/java/main:build/classes/java/test \
+ *     unprotesting.com.github.data.PlayerCountsBenchmark playercounts
+ * </pre>
+ */
+public class PlayerCountsBenchmark {
+
+    // The shops, each with recent buys, recent sells and autosell counts.
+    private static final int SHOPS = 300;
+    private static final int COUNTERS = 3;
+    // The players with a count in every counter.
+    private static final int PLAYERS = 500;
+    // The counts added when timing.
+    private static final int ADDS = 5_000_000;
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args Either hashmap or playercounts.
+     */
+    public static void main(String[] args) {
+        boolean hashMap = args.length > 0 && args[0].equalsIgnoreCase("hashmap");
+        UUID[] players = new UUID[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            players[i] = UUID.randomUUID();
+        }
+
+        Random random = new Random(1);
+        Object[] counters = new Object[SHOPS * COUNTERS];
+        long before = usedHeap();
+
+        for (int i = 0; i < counters.length; i++) {
+            if (hashMap) {
+                Map<UUID, Integer> map = new HashMap<>();
+                for (int p = 0; p < PLAYERS; p++) {
+                    map.put(players[p], 200 + random.nextInt(2000));
+                }
+                counters[i] = map;
+            } else {
+                PlayerCounts counts = new PlayerCounts();
+                for (int p = 0; p < PLAYERS; p++) {
+                    counts.add(p, 200 + random.nextInt(2000));
+                }
+                counters[i] = counts;
+            }
+        }
+
+        long heap = usedHeap() - before;
+        System.out.println((hashMap ? "HashMap<UUID, Integer>" : "PlayerCounts") + ": "
+                + heap / 1024 + " KiB for " + counters.length + " counters of " + PLAYERS
+                + " players");
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            if (hashMap) {
+                @SuppressWarnings("unchecked")
+                Map<UUID, Integer> map = (Map<UUID, Integer>) counters[0];
+                for (int i = 0; i < ADDS; i++) {
+                    map.merge(players[i % PLAYERS], 1, Integer::sum);
+                }
+            } else {
+                PlayerCounts counts = (PlayerCounts) counters[0];
+                for (int i = 0; i < ADDS; i++) {
+                    counts.add(i % PLAYERS, 1);
+                }
+            }
+            System.out.println(ADDS + " adds: " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,138 @@
+package unprotesting.com.github.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import unprotesting.com.github.util.Format;
+
+/**
+ * Stress test of a shop changed by many threads while it is flushed, like purchases on
+ * the main thread, autosell and the time period update racing the async flush.
+ *
+ * <p>Players are given by their id from the {@link PlayerIndex}, so the shop is used
+ * without a database.
+ */
+public class ShopConcurrencyTest {
+
+    // The threads buying and selling, each as its own player.
+    private static final int TRADERS = 8;
+    // The buys and sells made by each trader.
+    private static final int TRADES = 20_000;
+
+    // What the flush saved of the shop, like the maps written by Database.writeShop.
+    private CollectFirst savedSetting;
+    private ShopState savedState;
+    private final Map<Integer, int[]> savedCounts = new HashMap<>();
+
+    @BeforeAll
+    static void setUp() {
+        Format.loadLogger(Logger.getLogger("ShopConcurrencyTest"), Level.WARNING);
+    }
+
+    @Test
+    void concurrentChangesAreNotLost() throws InterruptedException {
+        Shop shop = Shop.builder()
+                .history(new ShopHistory(10))
+                .setting(new CollectFirst("none"))
+                .autosell(new PlayerCounts())
+                .recentBuys(new PlayerCounts())
+                .recentSells(new PlayerCounts())
+                .dirtyPlayers(new BitSet())
+                .build();
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean trading = new AtomicBoolean(true);
+        List<Thread> traders = new ArrayList<>();
+
+        for (int t = 0; t < TRADERS; t++) {
+            int player = t;
+            traders.add(new Thread(() -> {
+                await(start);
+                for (int i = 0; i < TRADES; i++) {
+                    shop.addBuys(player, 1);
+                    shop.addSells(player, 1);
+                }
+            }));
+        }
+
+        CollectFirst[] settings = { new CollectFirst("player"), new CollectFirst("server") };
+        Thread setter = new Thread(() -> {
+            await(start);
+            for (int i = 0; trading.get(); i++) {
+                shop.setSetting(settings[i % 2]);
+            }
+        });
+
+        Thread flusher = new Thread(() -> {
+            await(start);
+            while (trading.get()) {
+                flush(shop);
+            }
+        });
+
+        traders.forEach(Thread::start);
+        setter.start();
+        flusher.start();
+        start.countDown();
+
+        for (Thread trader : traders) {
+            trader.join();
+        }
+        trading.set(false);
+        setter.join();
+        flusher.join();
+        flush(shop);
+
+        assertEquals(TRADERS * TRADES, shop.getBuyCount());
+        assertEquals(TRADERS * TRADES, shop.getSellCount());
+        assertEquals(TRADERS * TRADES, savedState.getBuys());
+        assertEquals(TRADERS * TRADES, savedState.getSells());
+        assertSame(shop.getSetting(), savedSetting);
+
+        for (int player = 0; player < TRADERS; player++) {
+            assertArrayEquals(new int[] { TRADES, TRADES, 0 }, shop.getPlayerCounts(player));
+            assertArrayEquals(new int[] { TRADES, TRADES, 0 }, savedCounts.get(player));
+        }
+    }
+
+    private void flush(Shop shop) {
+        synchronized (shop) {
+            if (shop.isDirty(Shop.SETTINGS)) {
+                savedSetting = shop.getSetting();
+            }
+
+            if (shop.isDirty(Shop.STATE)) {
+                savedState = shop.getState();
+            }
+
+            BitSet dirtyPlayers = shop.dirtyPlayers;
+            for (int player = dirtyPlayers.nextSetBit(0); player >= 0;
+                    player = dirtyPlayers.nextSetBit(player + 1)) {
+                savedCounts.put(player, shop.getPlayerCounts(player));
+            }
+
+            shop.markClean();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
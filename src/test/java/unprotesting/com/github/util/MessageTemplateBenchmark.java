@@ -0,0 +1,89 @@
+package unprotesting.com.github.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.bukkit.configuration.file.YamlConfiguration;
+import unprotesting.com.github.util.MessageTemplate.Slots;
+
+/**
+ * Compares rendering the shop messages by parsing them with MiniMessage every time
+ * and by filling the slots of their compiled {@link MessageTemplate}.
+ *
+ * <p>Every slot is set to the same value. After {@code ./gradlew testClasses} run:
+ *
+ * <pre>
+ * java -cp build/classes/java/main:build/classes/java/test:&lt;paper-api classpath&gt; \
+ *     unprotesting.com.github.util.MessageTemplateBenchmark [messages.yml] [rounds]
+ * </pre>
+ */
+public class MessageTemplateBenchmark {
+
+    // The messages.yml lists and messages that are rendered.
+    private static final String[] LISTS = { "shop-lore", "purchase-buy-lore" };
+    private static final String[] MESSAGES = { "shop-purchase", "shop-sell" };
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args The path of messages.yml and the number of rounds, both optional.
+     */
+    public static void main(String[] args) {
+        String path = args.length > 0 ? args[0] : "src/main/resources/messages.yml";
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(new File(path));
+        MessageTemplate.compileAll(config);
+
+        List<String> messages = new ArrayList<>();
+        for (String key : LISTS) {
+            messages.addAll(config.getStringList(key));
+        }
+        for (String key : MESSAGES) {
+            if (config.isString(key)) {
+                messages.add(config.getString(key));
+            }
+        }
+
+        MiniMessage miniMessage = MiniMessage.miniMessage();
+        List<MessageTemplate> templates = new ArrayList<>();
+        List<TagResolver> resolvers = new ArrayList<>();
+        List<Slots> values = new ArrayList<>();
+
+        for (String message : messages) {
+            MessageTemplate template = MessageTemplate.get(message);
+            TagResolver.Builder resolver = TagResolver.builder();
+            Slots slots = MessageTemplate.slots();
+            for (String slot : template.getSlots()) {
+                resolver.resolver(Placeholder.parsed(slot, "1,000.00"));
+                slots.parsed(slot, "1,000.00");
+            }
+            templates.add(template);
+            resolvers.add(resolver.build());
+            values.add(slots);
+        }
+
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < messages.size(); i++) {
+                miniMessage.deserialize(messages.get(i), resolvers.get(i));
+            }
+        }
+
+        long parsed = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < templates.size(); i++) {
+                templates.get(i).render(values.get(i));
+            }
+        }
+
+        long filled = System.nanoTime();
+        long count = Math.max(1L, (long) rounds * messages.size());
+        System.out.println("Rendered " + messages.size() + " messages " + rounds
+                + " times. Parsing: " + (parsed - start) / count + "ns, templates: "
+                + (filled - parsed) / count + "ns per message.");
+    }
+
+}